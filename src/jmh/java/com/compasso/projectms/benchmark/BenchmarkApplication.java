@@ -0,0 +1,68 @@
+package com.compasso.projectms.benchmark;
+
+import com.compasso.projectms.ProjectMsApplication;
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.compasso.projectms.domain.index.ProductPriceIndex;
+import com.compasso.projectms.domain.index.ProductTextIndex;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the application without a web server on a private in-memory H2 database seeded
+ * with a given number of products.
+ */
+public final class BenchmarkApplication {
+
+    public static final String[] WORDS = {
+            "shirt", "smart", "tv", "macbook", "pro", "gamer", "rails", "dummies", "lord", "rings",
+            "blue", "cotton", "screen", "notebook", "desktop", "summer", "nice", "cheap", "book", "sport"
+    };
+
+    private BenchmarkApplication() {}
+
+    public static ConfigurableApplicationContext start(int rows, String... properties) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> defaults = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID(),
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN",
+                // H2 may already be gone when the context closes at the end of a trial
+                "logging.level.org.springframework.beans.factory.support.DisposableBeanAdapter=ERROR"));
+        defaults.addAll(List.of(properties));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ProjectMsApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(defaults.toArray(new String[0]))
+                .run();
+        seed(context.getBean(JdbcTemplate.class), rows);
+        context.getBean(ProductTextIndex.class).rebuild();
+        context.getBean(ProductPriceIndex.class).rebuild();
+        return context;
+    }
+
+    public static List<String> ids(ConfigurableApplicationContext context) {
+        return context.getBean(JdbcTemplate.class).queryForList("SELECT id FROM product", String.class);
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int rows) {
+        List<Object[]> batch = new ArrayList<>(1000);
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[]{
+                    ProductIdGenerator.nextId(),
+                    WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i,
+                    "Lorem ipsum " + WORDS[(i * 7) % WORDS.length] + " dolor sit amet",
+                    BigDecimal.valueOf(100 + (i * 37L) % 1_000_000, 2)});
+            if (batch.size() == 1000 || i == rows - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO product (id, name, description, price, version) VALUES (?, ?, ?, ?, 0)", batch);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.compasso.projectms.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load generator for comparing the servlet and reactive modes against a
+ * running instance. Seeds products through the batch endpoint, then keeps {@code concurrency}
+ * requests in flight with a mix of lookups, searches and page reads and prints throughput and
+ * latency percentiles per operation.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.main=com.compasso.projectms.benchmark.HttpLoadTest \
+ *     -Djmh.args="url=http://localhost:9999 concurrency=256 seconds=30 rows=10000"
+ * </pre>
+ */
+public final class HttpLoadTest {
+
+    private static final String[] OPERATIONS = {"findById", "search", "page"};
+
+    private static final int SEED_CHUNK = 1000;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String url;
+
+    private final List<String> ids = new ArrayList<>();
+
+    private HttpLoadTest(String url) {
+        this.url = url;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        HttpLoadTest test = new HttpLoadTest(options.getOrDefault("url", "http://localhost:9999"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "256"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+
+        test.seed(Integer.parseInt(options.getOrDefault("rows", "10000")));
+        test.run(concurrency, warmup);
+        Map<String, long[]> latencies = test.run(concurrency, seconds);
+        report(concurrency, seconds, latencies);
+    }
+
+    private void seed(int rows) throws Exception {
+        for (int from = 0; from < rows; from += SEED_CHUNK) {
+            ArrayNode products = objectMapper.createArrayNode();
+            for (int i = from; i < Math.min(from + SEED_CHUNK, rows); i++) {
+                products.addObject()
+                        .put("name", word(i) + " " + word(i / BenchmarkApplication.WORDS.length) + " " + i)
+                        .put("description", "Lorem ipsum " + word(i * 7) + " dolor sit amet")
+                        .put("price", 1 + (i * 37L) % 10_000);
+            }
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url + "/products/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(products)))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            for (JsonNode item : objectMapper.readTree(response.body()).path("items")) {
+                if (item.hasNonNull("id")) {
+                    ids.add(item.get("id").asText());
+                }
+            }
+        }
+        System.out.printf("seeded %d products%n", ids.size());
+    }
+
+    private Map<String, long[]> run(int concurrency, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        Map<String, LongList> latencies = new HashMap<>();
+        for (String operation : OPERATIONS) {
+            latencies.put(operation, new LongList());
+        }
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int c = 0; c < concurrency; c++) {
+            next(deadline, latencies, errors, done);
+        }
+        done.await();
+
+        Map<String, long[]> sorted = new LinkedHashMap<>();
+        for (String operation : OPERATIONS) {
+            long[] values;
+            synchronized (latencies) {
+                values = latencies.get(operation).toArray();
+            }
+            Arrays.sort(values);
+            sorted.put(operation, values);
+        }
+        if (errors.get() > 0) {
+            System.out.printf("%d requests failed%n", errors.get());
+        }
+        return sorted;
+    }
+
+    /**
+     * Sends one request and, once it completes, the next one, so that each of the
+     * {@code concurrency} chains keeps exactly one request in flight without a thread per client.
+     */
+    private void next(long deadline, Map<String, LongList> latencies, AtomicLong errors, CountDownLatch done) {
+        if (System.nanoTime() >= deadline) {
+            done.countDown();
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String operation = OPERATIONS[random.nextInt(OPERATIONS.length)];
+        long start = System.nanoTime();
+        client.sendAsync(request(operation, random), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    if (failure != null || response.statusCode() >= 400) {
+                        errors.incrementAndGet();
+                    } else {
+                        long elapsed = System.nanoTime() - start;
+                        synchronized (latencies) {
+                            latencies.get(operation).add(elapsed);
+                        }
+                    }
+                    next(deadline, latencies, errors, done);
+                });
+    }
+
+    private HttpRequest request(String operation, ThreadLocalRandom random) {
+        String path;
+        switch (operation) {
+            case "findById":
+                path = "/products/" + ids.get(random.nextInt(ids.size()));
+                break;
+            case "search":
+                path = "/products/search?q=" + word(random.nextInt(BenchmarkApplication.WORDS.length))
+                        + "&max_price=" + (1 + random.nextInt(100));
+                break;
+            default:
+                path = "/products?size=50";
+        }
+        return HttpRequest.newBuilder(URI.create(url + path))
+                .header("Accept", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private static void report(int concurrency, int seconds, Map<String, long[]> latencies) {
+        long total = 0;
+        System.out.printf("concurrency %d, %d s%n", concurrency, seconds);
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %10s%n",
+                "operation", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, long[]> entry : latencies.entrySet()) {
+            long[] values = entry.getValue();
+            total += values.length;
+            System.out.printf("%-10s %10d %10.0f %10.2f %10.2f %10.2f %10.2f%n", entry.getKey(), values.length,
+                    (double) values.length / seconds, percentile(values, 0.50), percentile(values, 0.95),
+                    percentile(values, 0.99), percentile(values, 1.0));
+        }
+        System.out.printf("%-10s %10d %10.0f%n", "total", total, (double) total / seconds);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static String word(int i) {
+        return BenchmarkApplication.WORDS[Math.floorMod(i, BenchmarkApplication.WORDS.length)];
+    }
+
+    private static final class LongList {
+
+        private long[] values = new long[1024];
+
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.compasso.projectms.benchmark;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductDto JSON round trip with the application's configured ObjectMapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductJsonBenchmark {
+
+    private ConfigurableApplicationContext context;
+
+    private ObjectWriter writer;
+
+    private ObjectReader reader;
+
+    private ProductDto dto;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = BenchmarkApplication.start(0);
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        writer = objectMapper.writerFor(ProductDto.class);
+        reader = objectMapper.readerFor(ProductDto.class);
+        dto = new ProductDto("766969922529001575", "The Lord of the Rings", "Lorem ipsum dolor sit amet.",
+                new BigDecimal("90.50"));
+        json = writer.writeValueAsBytes(dto);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(dto);
+    }
+
+    @Benchmark
+    public ProductDto deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+}
@@ -0,0 +1,66 @@
+package com.compasso.projectms.benchmark;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row entity to DTO conversion, the cost the DTO projection queries
+ * ({@code findDtosByIdInOrder}, {@code ProductSearchRepository}) avoid on the read paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductMappingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+
+    private ProductService productService;
+
+    private List<Product> products;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(0);
+        productService = context.getBean(ProductService.class);
+        products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new Product(Integer.toString(i), "Product " + i, "Lorem ipsum dolor sit amet.",
+                    BigDecimal.valueOf(i, 2)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductDto> convertEntityToDto() {
+        return productService.convertEntityToDto(products);
+    }
+}
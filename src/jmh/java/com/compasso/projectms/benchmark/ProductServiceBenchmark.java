@@ -0,0 +1,88 @@
+package com.compasso.projectms.benchmark;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.compasso.projectms.domain.repository.spec.ProductSpec.productMinMax;
+import static com.compasso.projectms.domain.repository.spec.ProductSpec.productWithNameOrDescription;
+import static org.springframework.data.jpa.domain.Specification.where;
+
+/**
+ * Service reads against H2 seeded with {@link #rows} products. findById draws ids uniformly,
+ * so the hit rate of the product cache depends on how the table size compares to the cache size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private ProductService productService;
+
+    private List<String> ids;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(rows);
+        productService = context.getBean(ProductService.class);
+        ids = BenchmarkApplication.ids(context);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductDto findById() {
+        return productService.findById(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+    }
+
+    @Benchmark
+    public List<Product> findAllSpecByText() {
+        return productService.findAllSpec(where(productWithNameOrDescription("smart tv"))
+                .and(productMinMax(null, null)));
+    }
+
+    @Benchmark
+    public List<Product> findAllSpecByPrice() {
+        return productService.findAllSpec(where(productWithNameOrDescription(null))
+                .and(productMinMax(BigDecimal.valueOf(100), BigDecimal.valueOf(150))));
+    }
+
+    @Benchmark
+    public List<ProductDto> searchByText() {
+        return productService.search("smart tv", null, null);
+    }
+
+    @Benchmark
+    public List<ProductDto> searchByPrice() {
+        return productService.search(null, BigDecimal.valueOf(100), BigDecimal.valueOf(150));
+    }
+}
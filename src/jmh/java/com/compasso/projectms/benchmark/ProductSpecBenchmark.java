@@ -0,0 +1,105 @@
+package com.compasso.projectms.benchmark;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.repository.ProductSearchRepository;
+import com.compasso.projectms.domain.repository.spec.ProductSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static com.compasso.projectms.domain.repository.spec.ProductSpec.productMinMax;
+import static com.compasso.projectms.domain.repository.spec.ProductSpec.productWithNameOrDescription;
+import static org.springframework.data.jpa.domain.Specification.where;
+
+/**
+ * Cost of building the /products/search Specification and turning it into a Criteria predicate,
+ * and of getting an executable query for a search, from the Specification or from the
+ * corresponding {@link ProductSearchRepository} shape.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductSpecBenchmark {
+
+    private ConfigurableApplicationContext context;
+
+    private EntityManager entityManager;
+
+    private CriteriaBuilder criteriaBuilder;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(0);
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        criteriaBuilder = entityManager.getCriteriaBuilder();
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        context.close();
+    }
+
+    @Benchmark
+    public Predicate noFilter() {
+        return toPredicate(null, null, null);
+    }
+
+    @Benchmark
+    public Predicate textFilter() {
+        return toPredicate("smart tv", null, null);
+    }
+
+    @Benchmark
+    public Predicate textAndPriceFilter() {
+        return toPredicate("smart tv", BigDecimal.valueOf(100), BigDecimal.valueOf(2500));
+    }
+
+    @Benchmark
+    public TypedQuery<Product> specQuery() {
+        CriteriaQuery<Product> query = criteriaBuilder.createQuery(Product.class);
+        Root<Product> root = query.from(Product.class);
+        query.where(where(productWithNameOrDescription("smart tv"))
+                .and(productMinMax(BigDecimal.valueOf(100), BigDecimal.valueOf(2500)))
+                .toPredicate(root, query, criteriaBuilder));
+        return entityManager.createQuery(query);
+    }
+
+    @Benchmark
+    public TypedQuery<ProductDto> shapeQuery() {
+        return entityManager.createQuery(ProductSearchRepository.jpql(true, true, true), ProductDto.class)
+                .setParameter("pattern", ProductSpec.like("smart tv"))
+                .setParameter("minPrice", BigDecimal.valueOf(100))
+                .setParameter("maxPrice", BigDecimal.valueOf(2500));
+    }
+
+    private Predicate toPredicate(String q, BigDecimal minPrice, BigDecimal maxPrice) {
+        CriteriaQuery<Product> query = criteriaBuilder.createQuery(Product.class);
+        Root<Product> root = query.from(Product.class);
+        return where(productWithNameOrDescription(q)).and(productMinMax(minPrice, maxPrice))
+                .toPredicate(root, query, criteriaBuilder);
+    }
+}
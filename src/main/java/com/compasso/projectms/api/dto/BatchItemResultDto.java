@@ -0,0 +1,51 @@
+package com.compasso.projectms.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResultDto {
+
+    @JsonProperty("index")
+    private int index;
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("status_code")
+    private int statusCode;
+
+    @JsonProperty("message")
+    private String message;
+
+    public BatchItemResultDto() {}
+
+    public BatchItemResultDto(int index, String id, int statusCode, String message) {
+        this.index = index;
+        this.id = id;
+        this.statusCode = statusCode;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @JsonIgnore
+    public boolean isSuccess() {
+        return statusCode < 300;
+    }
+}
@@ -0,0 +1,37 @@
+package com.compasso.projectms.api.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class BatchResultDto {
+
+    @JsonProperty("succeeded")
+    private long succeeded;
+
+    @JsonProperty("failed")
+    private long failed;
+
+    @JsonProperty("items")
+    private List<BatchItemResultDto> items;
+
+    public BatchResultDto() {}
+
+    public BatchResultDto(List<BatchItemResultDto> items) {
+        this.items = items;
+        this.succeeded = items.stream().filter(BatchItemResultDto::isSuccess).count();
+        this.failed = items.size() - succeeded;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public List<BatchItemResultDto> getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,66 @@
+package com.compasso.projectms.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+public class CacheStatsDto {
+
+    @JsonProperty("size")
+    private long size;
+
+    @JsonProperty("hits")
+    private long hits;
+
+    @JsonProperty("misses")
+    private long misses;
+
+    @JsonProperty("hit_rate")
+    private double hitRate;
+
+    @JsonProperty("evictions")
+    private long evictions;
+
+    @JsonProperty("invalidations")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long invalidations;
+
+    public CacheStatsDto() {}
+
+    public CacheStatsDto(long size, CacheStats stats) {
+        this.size = size;
+        this.hits = stats.hitCount();
+        this.misses = stats.missCount();
+        this.hitRate = stats.hitRate();
+        this.evictions = stats.evictionCount();
+    }
+
+    public CacheStatsDto(long size, CacheStats stats, long invalidations) {
+        this(size, stats);
+        this.invalidations = invalidations;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public Long getInvalidations() {
+        return invalidations;
+    }
+}
@@ -0,0 +1,131 @@
+package com.compasso.projectms.api.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ImportReportDto {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    public static final int MAX_ERRORS = 100;
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("source")
+    private String source;
+
+    @JsonProperty("status")
+    private volatile Status status = Status.RUNNING;
+
+    @JsonProperty("rows_read")
+    private volatile long rowsRead;
+
+    @JsonProperty("imported")
+    private volatile long imported;
+
+    @JsonProperty("failed")
+    private volatile long failed;
+
+    @JsonProperty("elapsed_ms")
+    private volatile long elapsedMs;
+
+    @JsonProperty("rows_per_second")
+    private volatile long rowsPerSecond;
+
+    @JsonProperty("message")
+    private volatile String message;
+
+    @JsonProperty("errors")
+    private final List<Error> errors = new ArrayList<>();
+
+    public ImportReportDto() {}
+
+    public ImportReportDto(String id, String source) {
+        this.id = id;
+        this.source = source;
+    }
+
+    public synchronized void addError(long line, String message) {
+        failed++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new Error(line, message));
+        }
+    }
+
+    public void progress(long rowsRead, long imported, long elapsedNanos) {
+        this.rowsRead = rowsRead;
+        this.imported = imported;
+        this.elapsedMs = elapsedNanos / 1_000_000;
+        this.rowsPerSecond = elapsedNanos == 0 ? 0 : rowsRead * 1_000_000_000L / elapsedNanos;
+    }
+
+    public void finish(Status status, String message) {
+        this.status = status;
+        this.message = message;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public synchronized List<Error> getErrors() {
+        return new ArrayList<>(errors);
+    }
+
+    public static class Error {
+
+        @JsonProperty("line")
+        private final long line;
+
+        @JsonProperty("message")
+        private final String message;
+
+        public Error(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
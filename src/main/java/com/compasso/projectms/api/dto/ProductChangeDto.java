@@ -0,0 +1,83 @@
+package com.compasso.projectms.api.dto;
+
+import com.compasso.projectms.domain.entity.ProductChange;
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductChangeDto {
+
+    @JsonProperty("sequence")
+    private long sequence;
+
+    @JsonProperty("type")
+    private ProductChangedEvent.Type type;
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("description")
+    private String description;
+
+    @JsonProperty("price")
+    private BigDecimal price;
+
+    @JsonProperty("version")
+    private Long version;
+
+    @JsonProperty("changed_at")
+    private Instant changedAt;
+
+    public ProductChangeDto() {}
+
+    public ProductChangeDto(ProductChange change) {
+        this.sequence = change.getSequence();
+        this.type = change.getType();
+        this.id = ProductIdGenerator.format(change.getProductId());
+        this.name = change.getName();
+        this.description = change.getDescription();
+        this.price = change.getPrice();
+        this.version = change.getVersion();
+        this.changedAt = change.getChangedAt();
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public ProductChangedEvent.Type getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
@@ -0,0 +1,29 @@
+package com.compasso.projectms.api.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ProductChangePageDto {
+
+    @JsonProperty("items")
+    private List<ProductChangeDto> items;
+
+    @JsonProperty("next_after")
+    private long nextAfter;
+
+    public ProductChangePageDto() {}
+
+    public ProductChangePageDto(List<ProductChangeDto> items, long nextAfter) {
+        this.items = items;
+        this.nextAfter = nextAfter;
+    }
+
+    public List<ProductChangeDto> getItems() {
+        return items;
+    }
+
+    public long getNextAfter() {
+        return nextAfter;
+    }
+}
@@ -7,6 +7,8 @@ import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
 import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public class ProductDto {
 
@@ -21,6 +23,9 @@ public class ProductDto {
     @NotNull(message = "Price is mandatory")
     @DecimalMin(value = "0.0", inclusive = false)
     private BigDecimal price;
+
+    @JsonIgnore
+    private Long version;
     
     public ProductDto() {}
     
@@ -30,11 +35,32 @@ public class ProductDto {
 		this.price = price;
 	}
 
+	public ProductDto(String id, String name, String description, BigDecimal price) {
+		this.id = id;
+		this.name = name;
+		this.description = description;
+		this.price = price;
+	}
+
+	public ProductDto(Long id, String name, String description, BigDecimal price, Long version) {
+		this(ProductIdGenerator.format(id), name, description, price);
+		this.version = version;
+	}
+
+	public ProductDto(ProductDto other) {
+        this.id = other.getId();
+        this.name = other.getName();
+        this.description = other.getDescription();
+        this.price = other.getPrice();
+        this.version = other.getVersion();
+    }
+
 	public ProductDto(Product entity) {
-        this.id = entity.getId();
+        this.id = ProductIdGenerator.format(entity.getId());
         this.name = entity.getName();
         this.description = entity.getDescription();
         this.price = entity.getPrice();
+        this.version = entity.getVersion();
     }
 
 	public String getId() {
@@ -68,4 +94,12 @@ public class ProductDto {
 	public void setPrice(BigDecimal price) {
 		this.price = price;
 	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
 }
@@ -0,0 +1,37 @@
+package com.compasso.projectms.api.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ProductLookupDto {
+
+    @JsonProperty("found")
+    private long found;
+
+    @JsonProperty("missing")
+    private long missing;
+
+    @JsonProperty("items")
+    private List<ProductLookupItemDto> items;
+
+    public ProductLookupDto() {}
+
+    public ProductLookupDto(List<ProductLookupItemDto> items) {
+        this.items = items;
+        this.found = items.stream().filter(ProductLookupItemDto::isFound).count();
+        this.missing = items.size() - found;
+    }
+
+    public long getFound() {
+        return found;
+    }
+
+    public long getMissing() {
+        return missing;
+    }
+
+    public List<ProductLookupItemDto> getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,59 @@
+package com.compasso.projectms.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductLookupItemDto {
+
+    @JsonProperty("index")
+    private int index;
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("status_code")
+    private int statusCode;
+
+    @JsonProperty("message")
+    private String message;
+
+    @JsonProperty("product")
+    private ProductDto product;
+
+    public ProductLookupItemDto() {}
+
+    public ProductLookupItemDto(int index, String id, ProductDto product) {
+        this.index = index;
+        this.id = id;
+        this.statusCode = product == null ? 404 : 200;
+        this.message = product == null ? "Entity not found" : null;
+        this.product = product;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public ProductDto getProduct() {
+        return product;
+    }
+
+    @JsonIgnore
+    public boolean isFound() {
+        return product != null;
+    }
+}
@@ -0,0 +1,37 @@
+package com.compasso.projectms.api.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ProductPageDto {
+
+    @JsonProperty("items")
+    private List<ProductDto> items;
+
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
+    public ProductPageDto() {}
+
+    public ProductPageDto(List<ProductDto> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ProductDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ProductDto> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,54 @@
+package com.compasso.projectms.api.dto;
+
+import com.compasso.projectms.domain.snapshot.ProductSnapshot;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+
+public class ProductSnapshotDto {
+
+    @JsonProperty("file")
+    private String file;
+
+    @JsonProperty("products")
+    private int products;
+
+    @JsonProperty("bytes")
+    private long bytes;
+
+    @JsonProperty("sequence")
+    private long sequence;
+
+    @JsonProperty("created_at")
+    private Instant createdAt;
+
+    public ProductSnapshotDto() {}
+
+    public ProductSnapshotDto(ProductSnapshot snapshot) {
+        this.file = snapshot.getFile().toString();
+        this.products = snapshot.size();
+        this.bytes = snapshot.bytes();
+        this.sequence = snapshot.getSequence();
+        this.createdAt = snapshot.getCreatedAt();
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public int getProducts() {
+        return products;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,94 @@
+package com.compasso.projectms.api.dto;
+
+import com.compasso.projectms.config.QueryStatistics;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class QueryStatsDto {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    @JsonProperty("shape")
+    private String shape;
+
+    @JsonProperty("origin")
+    private String origin;
+
+    @JsonProperty("count")
+    private long count;
+
+    @JsonProperty("total_ms")
+    private double totalMs;
+
+    @JsonProperty("mean_ms")
+    private double meanMs;
+
+    @JsonProperty("p99_ms")
+    private double p99Ms;
+
+    @JsonProperty("max_ms")
+    private double maxMs;
+
+    @JsonProperty("rows")
+    private long rows;
+
+    @JsonProperty("slow_count")
+    private long slowCount;
+
+    @JsonProperty("last_plan")
+    private String lastPlan;
+
+    public QueryStatsDto() {}
+
+    public QueryStatsDto(QueryStatistics.Shape shape) {
+        this.shape = shape.getSql();
+        this.origin = shape.getOrigin();
+        this.count = shape.getCount();
+        this.totalMs = shape.getTotalNanos() / NANOS_PER_MILLI;
+        this.meanMs = count == 0 ? 0 : totalMs / count;
+        this.p99Ms = shape.getPercentileNanos(99) / NANOS_PER_MILLI;
+        this.maxMs = shape.getMaxNanos() / NANOS_PER_MILLI;
+        this.rows = shape.getRows();
+        this.slowCount = shape.getSlowCount();
+        this.lastPlan = shape.getLastPlan();
+    }
+
+    public String getShape() {
+        return shape;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getTotalMs() {
+        return totalMs;
+    }
+
+    public double getMeanMs() {
+        return meanMs;
+    }
+
+    public double getP99Ms() {
+        return p99Ms;
+    }
+
+    public double getMaxMs() {
+        return maxMs;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getSlowCount() {
+        return slowCount;
+    }
+
+    public String getLastPlan() {
+        return lastPlan;
+    }
+}
@@ -0,0 +1,113 @@
+package com.compasso.projectms.api.resource;
+
+import com.compasso.projectms.api.dto.ProductChangeDto;
+import com.compasso.projectms.api.dto.ProductChangePageDto;
+import com.compasso.projectms.domain.service.ProductChangeFeed;
+import com.compasso.projectms.domain.service.exceptions.FormatErrorException;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+@Api(value = "Product changes")
+@RestController
+@RequestMapping(value = "/products/changes")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProductChangeResource {
+
+    static final int MAX_WAIT_SECONDS = 60;
+
+    private final ProductChangeFeed productChangeFeed;
+
+    private final Duration streamTimeout;
+
+    @Autowired
+    public ProductChangeResource(ProductChangeFeed productChangeFeed,
+                                 @Value("${product.changes.stream-timeout:30m}") Duration streamTimeout) {
+        this.productChangeFeed = productChangeFeed;
+        this.streamTimeout = streamTimeout;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Product changes after a sequence, waiting up to wait seconds for the first one")
+    @ApiResponses({@ApiResponse(code = 410, message = "Gone")})
+    public DeferredResult<ResponseEntity<ProductChangePageDto>> changes(
+            @RequestParam(value = "after", defaultValue = "0") long after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "wait", defaultValue = "0") int wait) {
+        int waitSeconds = Math.max(0, Math.min(wait, MAX_WAIT_SECONDS));
+        DeferredResult<ResponseEntity<ProductChangePageDto>> result = new DeferredResult<>(
+                Duration.ofSeconds(waitSeconds).toMillis(), () -> page(Collections.emptyList(), after));
+
+        if (waitSeconds == 0) {
+            result.setResult(page(productChangeFeed.read(after, limit), after));
+            return result;
+        }
+        ProductChangeFeed.Subscription subscription = productChangeFeed.subscribe(after, limit,
+                changes -> result.setResult(page(changes, after)));
+        result.onCompletion(subscription::cancel);
+        return result;
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ApiOperation(value = "Stream product changes after a sequence as server-sent events")
+    @ApiResponses({@ApiResponse(code = 410, message = "Gone")})
+    public SseEmitter stream(@RequestParam(value = "after", defaultValue = "0") long after,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        ProductChangeFeed.Subscription subscription = productChangeFeed.subscribe(resumeAfter(after, lastEventId),
+                ProductChangeFeed.MAX_BATCH_SIZE, changes -> send(emitter, changes));
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        return emitter;
+    }
+
+    static long resumeAfter(long after, String lastEventId) {
+        if (lastEventId == null || lastEventId.isEmpty()) {
+            return after;
+        }
+        try {
+            return Long.parseLong(lastEventId);
+        } catch (NumberFormatException e) {
+            throw new FormatErrorException("Invalid Last-Event-ID");
+        }
+    }
+
+    private static ResponseEntity<ProductChangePageDto> page(List<ProductChangeDto> changes, long after) {
+        long nextAfter = changes.isEmpty() ? after : changes.get(changes.size() - 1).getSequence();
+        return ResponseEntity.ok(new ProductChangePageDto(changes, nextAfter));
+    }
+
+    private static void send(SseEmitter emitter, List<ProductChangeDto> changes) {
+        try {
+            for (ProductChangeDto change : changes) {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(change.getSequence()))
+                        .name(change.getType().name())
+                        .data(change, MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.compasso.projectms.api.resource;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.service.exceptions.PreconditionFailedException;
+import com.compasso.projectms.domain.service.exceptions.ProductNotFoundException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ETags derived from product versions: a strong {@code "<version>"} for a single product, and
+ * {@code "<version>-gzip"} for its gzip encoding, since a strong validator has to differ per
+ * content coding, and a weak hash of every id and version for listings, so they change whenever
+ * any listed product does without the body having to be serialized first.
+ */
+final class ProductETags {
+
+    private static final String GZIP_SUFFIX = "-gzip";
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ProductETags() {}
+
+    static String of(ProductDto dto) {
+        return dto.getVersion() == null ? null : "\"" + dto.getVersion() + "\"";
+    }
+
+    /**
+     * The ETag of the gzip encoding of the representation tagged {@code eTag}.
+     */
+    static String gzip(String eTag) {
+        return eTag == null ? null : eTag.substring(0, eTag.length() - 1) + GZIP_SUFFIX + "\"";
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header matches the product version behind {@code eTag}, in
+     * any of its encodings and compared weakly.
+     */
+    static boolean noneMatch(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.endsWith(GZIP_SUFFIX + "\"")) {
+                tag = tag.substring(0, tag.length() - GZIP_SUFFIX.length() - 1) + "\"";
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String of(List<ProductDto> products, String cursor) {
+        long hash = FNV_OFFSET;
+        for (ProductDto product : products) {
+            hash = hash(hash, product.getId());
+            hash = hash(hash, String.valueOf(product.getVersion()));
+        }
+        hash = hash(hash, String.valueOf(cursor));
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * The versions any of which an {@code If-Match} list accepts, or {@code null} when any version
+     * will do. Tags that are not product versions never match; a list without any fails at once.
+     */
+    static Set<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        Set<Long> versions = new LinkedHashSet<>();
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return null;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            tag = tag.replace("\"", "");
+            if (tag.endsWith(GZIP_SUFFIX)) {
+                tag = tag.substring(0, tag.length() - GZIP_SUFFIX.length());
+            }
+            try {
+                versions.add(Long.valueOf(tag));
+            } catch (NumberFormatException e) {
+                // an entity-tag of some other representation
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new PreconditionFailedException("If-Match " + ifMatch + " is not a product version");
+        }
+        return versions;
+    }
+
+    /**
+     * A conditional request on a product that does not exist fails its precondition, even
+     * {@code If-Match: *} (RFC 9110, section 13.1.1).
+     */
+    static RuntimeException notFound(String ifMatch, ProductNotFoundException e) {
+        return ifMatch == null ? e : new PreconditionFailedException(e.getMessage());
+    }
+
+    private static long hash(long hash, String value) {
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ b) * FNV_PRIME;
+        }
+        return (hash ^ 0xff) * FNV_PRIME;
+    }
+}
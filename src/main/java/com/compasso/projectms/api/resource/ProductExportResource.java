@@ -0,0 +1,80 @@
+package com.compasso.projectms.api.resource;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.api.stream.NdjsonWriter;
+import com.compasso.projectms.api.stream.ProductBinaryWriter;
+import com.compasso.projectms.domain.service.ProductService;
+import com.compasso.projectms.domain.service.exceptions.FormatErrorException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+@Api(value = "Product export")
+@RestController
+@RequestMapping(value = "/products")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProductExportResource {
+
+    private final ProductService productService;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ProductExportResource(ProductService productService, ObjectMapper objectMapper) {
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping(value = "/export")
+    @ApiOperation(value = "Stream the whole catalog as NDJSON or length-prefixed binary, optionally gzipped")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+        boolean binary;
+        if ("ndjson".equalsIgnoreCase(format)) {
+            binary = false;
+        } else if ("binary".equalsIgnoreCase(format)) {
+            binary = true;
+        } else {
+            throw new FormatErrorException("Unsupported export format " + format);
+        }
+
+        StreamingResponseBody body = response -> {
+            OutputStream out = gzip ? new GZIPOutputStream(response, 64 * 1024) : response;
+            if (binary) {
+                try (ProductBinaryWriter writer = new ProductBinaryWriter(out)) {
+                    response.flush();
+                    productService.streamAll(writer::write);
+                }
+            } else {
+                try (NdjsonWriter writer = new NdjsonWriter(objectMapper, ProductDto.class, out)) {
+                    response.flush();
+                    productService.streamAll(writer::write);
+                }
+            }
+            if (gzip) {
+                ((GZIPOutputStream) out).finish();
+            }
+        };
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(binary ? MediaType.parseMediaType(ProductBinaryWriter.MEDIA_TYPE) : MediaType.APPLICATION_NDJSON);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(body);
+    }
+}
@@ -0,0 +1,72 @@
+package com.compasso.projectms.api.resource;
+
+import com.compasso.projectms.api.dto.ImportReportDto;
+import com.compasso.projectms.domain.service.ProductImportService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+@Api(value = "Product import")
+@RestController
+@RequestMapping(value = "/products")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProductImportResource {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final ProductImportService productImportService;
+
+    @Autowired
+    public ProductImportResource(ProductImportService productImportService) {
+        this.productImportService = productImportService;
+    }
+
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Import products streamed in the request body as NDJSON or CSV")
+    public ResponseEntity<ImportReportDto> importBody(InputStream body,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestHeader("Content-Type") String contentType) {
+        ProductImportService.Format importFormat = ProductImportService.formatOf(
+                format != null ? format : MediaType.parseMediaType(contentType).getSubtype());
+        return ResponseEntity.ok(productImportService.importStream(body, importFormat, "request body"));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Import an uploaded NDJSON or CSV file")
+    public ResponseEntity<ImportReportDto> importUpload(@RequestParam("file") MultipartFile file,
+            @RequestParam(value = "format", required = false) String format) throws IOException {
+        ProductImportService.Format importFormat =
+                ProductImportService.formatOf(format != null ? format : file.getOriginalFilename());
+        try (InputStream in = file.getInputStream()) {
+            return ResponseEntity.ok(productImportService.importStream(in, importFormat, file.getOriginalFilename()));
+        }
+    }
+
+    @PostMapping(value = "/import", params = "path", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Import an NDJSON or CSV file from the server import directory")
+    public ResponseEntity<ImportReportDto> importFile(@RequestParam("path") String path) {
+        return ResponseEntity.ok(productImportService.importFile(path));
+    }
+
+    @GetMapping(value = "/imports", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Progress of running imports and reports of the latest finished ones")
+    public ResponseEntity<List<ImportReportDto>> reports() {
+        return ResponseEntity.ok(productImportService.reports());
+    }
+}
@@ -0,0 +1,175 @@
+package com.compasso.projectms.api.resource;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.cache.ProductCache;
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.compasso.projectms.domain.service.ProductService;
+import com.compasso.projectms.domain.service.exceptions.ProductNotFoundException;
+import com.compasso.projectms.domain.snapshot.ProductSnapshotStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized {@code GET /products/{id}} responses of the most requested products: the UTF-8
+ * JSON, its ETag and, once asked for, its gzip encoding. Hits are written out as they are, with
+ * no Jackson or compression work per request.
+ *
+ * <p>Entries are rebuilt once a write commits, after the {@link ProductCache} has dropped its
+ * copy, and dropped on delete. Entries read from a product snapshot are reloaded when another
+ * snapshot is served.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProductJsonCache {
+
+    private final ProductService productService;
+
+    private final ProductSnapshotStore productSnapshotStore;
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<String, Representation> cache;
+
+    @Autowired
+    public ProductJsonCache(ProductService productService, ProductSnapshotStore productSnapshotStore,
+                            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                            @Value("${product.json-cache.maximum-size:1000}") long maximumSize) {
+        this.productService = productService;
+        this.productSnapshotStore = productSnapshotStore;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        bindMetrics(meterRegistry);
+    }
+
+    /**
+     * The representation of product {@code id}, serializing it on a miss. Entries are keyed by
+     * the canonical id, the one writes are published under, so {@code 007} and {@code 7} share
+     * the entry that updates and deletes of product 7 refresh.
+     *
+     * @throws ProductNotFoundException when there is no such product
+     */
+    public Representation get(String id) {
+        Long productId = ProductIdGenerator.parse(id);
+        if (productId == null) {
+            throw new ProductNotFoundException("Entity not found");
+        }
+        return getCanonical(ProductIdGenerator.format(productId));
+    }
+
+    private Representation getCanonical(String id) {
+        Object source = productSnapshotStore.current();
+        Representation representation = cache.get(id, key -> serialize(productService.findById(key), source));
+        if (representation.source != source) {
+            representation = serialize(productService.findById(id), source);
+            cache.put(id, representation);
+        }
+        return representation;
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            cache.invalidate(event.getId());
+            return;
+        }
+        // reloaded rather than built from the event, so the bytes match what a miss would produce
+        cache.asMap().computeIfPresent(event.getId(), (id, cached) -> {
+            try {
+                return serialize(productService.findById(id), cached.source);
+            } catch (ProductNotFoundException e) {
+                return null;
+            }
+        });
+    }
+
+    private void bindMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", cache, c -> c.stats().hitCount())
+                .tag("cache", "json").tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", cache, c -> c.stats().missCount())
+                .tag("cache", "json").tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", cache, c -> c.stats().evictionCount())
+                .tag("cache", "json").register(registry);
+        Gauge.builder("cache.size", cache, Cache::estimatedSize)
+                .tag("cache", "json").register(registry);
+    }
+
+    private Representation serialize(ProductDto dto, Object source) {
+        try {
+            return new Representation(objectMapper.writeValueAsBytes(dto), ProductETags.of(dto), source);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static final class Representation {
+
+        private static final byte[] NOT_SMALLER = new byte[0];
+
+        private final byte[] json;
+
+        private final String eTag;
+
+        private final Object source;
+
+        private volatile byte[] gzip;
+
+        private Representation(byte[] json, String eTag, Object source) {
+            this.json = json;
+            this.eTag = eTag;
+            this.source = source;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * The gzip-encoded JSON, or {@code null} when compressing does not make it smaller, as is
+         * the case for most single products.
+         */
+        public byte[] getGzip() {
+            byte[] encoded = gzip;
+            if (encoded == null) {
+                encoded = compress(json);
+                gzip = encoded;
+            }
+            return encoded == NOT_SMALLER ? null : encoded;
+        }
+
+        private static byte[] compress(byte[] json) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length);
+            try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+                out.write(json);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.size() < json.length ? bytes.toByteArray() : NOT_SMALLER;
+        }
+    }
+}
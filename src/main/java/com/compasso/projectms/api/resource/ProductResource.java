@@ -1,16 +1,28 @@
 package com.compasso.projectms.api.resource;
 
+import com.compasso.projectms.api.dto.BatchResultDto;
 import com.compasso.projectms.api.dto.ProductDto;
-import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.api.dto.ProductLookupDto;
+import com.compasso.projectms.api.dto.ProductPageDto;
+import com.compasso.projectms.api.stream.NdjsonWriter;
+import com.compasso.projectms.domain.service.ProductBatchService;
 import com.compasso.projectms.domain.service.ProductService;
+import com.compasso.projectms.domain.service.exceptions.PreconditionRequiredException;
+import com.compasso.projectms.domain.service.exceptions.ProductNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
@@ -18,20 +30,31 @@ import java.math.BigDecimal;
 import java.net.URI;
 import java.util.List;
 
-import static com.compasso.projectms.domain.repository.spec.ProductSpec.productMinMax;
-import static com.compasso.projectms.domain.repository.spec.ProductSpec.productWithNameOrDescription;
-import static org.springframework.data.jpa.domain.Specification.where;
-
 @Api(value = "Product")
 @RestController
 @RequestMapping(value = "/products")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ProductResource {
 
     private final ProductService productService;
 
+    private final ProductBatchService productBatchService;
+
+    private final ProductJsonCache productJsonCache;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean requireIfMatch;
+
     @Autowired
-    public ProductResource(ProductService productService) {
+    public ProductResource(ProductService productService, ProductBatchService productBatchService,
+                           ProductJsonCache productJsonCache, ObjectMapper objectMapper,
+                           @Value("${product.require-if-match:false}") boolean requireIfMatch) {
         this.productService = productService;
+        this.productBatchService = productBatchService;
+        this.productJsonCache = productJsonCache;
+        this.objectMapper = objectMapper;
+        this.requireIfMatch = requireIfMatch;
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -44,30 +67,99 @@ public class ProductResource {
                 .path("/{id}")
                 .buildAndExpand(dto.getId())
                 .toUri();
-        return ResponseEntity.created(uri).body(dto);
+        return ResponseEntity.created(uri).eTag(ProductETags.of(dto)).body(dto);
+    }
+
+    @PostMapping(value = "/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Save products in bulk, reporting the outcome of each item")
+    public ResponseEntity<BatchResultDto> insertAll(@RequestBody List<ProductDto> dtos) {
+        return ResponseEntity.ok(new BatchResultDto(productBatchService.insertAll(dtos)));
+    }
+
+    @PutMapping(value = "/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Update products in bulk, reporting the outcome of each item")
+    public ResponseEntity<BatchResultDto> updateAll(@RequestBody List<ProductDto> dtos) {
+        return ResponseEntity.ok(new BatchResultDto(productBatchService.updateAll(dtos)));
     }
 
     @PutMapping(value = "/{id}",
             consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    @ApiOperation(value = "Update product")
-    public ResponseEntity<ProductDto> update(@PathVariable String id, @Valid @RequestBody ProductDto dto) {
-        dto = productService.update(id, dto);
-        return ResponseEntity.ok().body(dto);
+    @ApiOperation(value = "Update product, only while it still matches the If-Match ETag when one is sent")
+    @ApiResponses({@ApiResponse(code = 412, message = "Precondition Failed")})
+    public ResponseEntity<ProductDto> update(@PathVariable String id, @Valid @RequestBody ProductDto dto,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (requireIfMatch && ifMatch == null) {
+            throw new PreconditionRequiredException("If-Match is required");
+        }
+        try {
+            dto = productService.update(id, dto, ProductETags.expectedVersions(ifMatch));
+        } catch (ProductNotFoundException e) {
+            throw ProductETags.notFound(ifMatch, e);
+        }
+        return ResponseEntity.ok().eTag(ProductETags.of(dto)).body(dto);
     }
 
     @GetMapping(value ="/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    @ApiOperation(value = "Search for a product by its id")
-    public ResponseEntity<ProductDto> findById(@PathVariable String id) {
-        ProductDto dto = productService.findById(id);
-        return ResponseEntity.ok().body(dto);
+    @ApiOperation(value = "Search for a product by its id", response = ProductDto.class)
+    public ResponseEntity<byte[]> findById(@PathVariable String id,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                   String acceptEncoding,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                   String ifNoneMatch) {
+        ProductJsonCache.Representation representation = productJsonCache.get(id);
+        byte[] gzip = acceptEncoding != null && acceptEncoding.contains("gzip") ? representation.getGzip() : null;
+        String eTag = gzip != null ? ProductETags.gzip(representation.getETag()) : representation.getETag();
+        if (ProductETags.noneMatch(ifNoneMatch, representation.getETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(eTag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip != null) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzip);
+        }
+        return response.body(representation.getJson());
     }
 
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    @ApiOperation(value = "Search all products")
+    @ApiOperation(value = "Search all products, one keyset page at a time")
     @ApiResponses({@ApiResponse(code = 500, message = "Internal Error")})
-    public ResponseEntity<List<Product>> findAll() {
-        List<Product> list = productService.findAll();
-        return ResponseEntity.ok().body(list);
+    public ResponseEntity<ProductPageDto> findAll(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "50") int size) {
+        ProductPageDto page = productService.findPage(cursor, size);
+        return ResponseEntity.ok().eTag(ProductETags.of(page.getItems(), page.getNextCursor())).body(page);
+    }
+
+    @GetMapping(params = "ids", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Search for many products by their comma-separated ids, in the order given")
+    public ResponseEntity<ProductLookupDto> findAllById(@RequestParam("ids") List<String> ids) {
+        return ResponseEntity.ok(productService.findAllById(ids));
+    }
+
+    @PostMapping(value = "/lookup",
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Search for many products by their ids, in the order given")
+    public ResponseEntity<ProductLookupDto> lookup(@RequestBody List<String> ids) {
+        return ResponseEntity.ok(productService.findAllById(ids));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ApiOperation(value = "Stream all products as newline-delimited JSON")
+    @ApiResponses({@ApiResponse(code = 500, message = "Internal Error")})
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter writer = new NdjsonWriter(objectMapper, ProductDto.class, out)) {
+                productService.streamAll(writer::write);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -77,19 +169,20 @@ public class ProductResource {
             @RequestParam(value = "min_price", required = false) BigDecimal minPrice,
             @RequestParam(value = "max_price", required = false) BigDecimal maxPrice) {
 
-        List<Product> products = this.productService.findAllSpec(
-                where(productWithNameOrDescription(nameOrDescription)).
-                and(productMinMax(minPrice, maxPrice)));
-
-        List<ProductDto> productDto = productService.convertEntityToDto(products);
-
-        return ResponseEntity.ok(productDto);
+        List<ProductDto> productDto = productService.search(nameOrDescription, minPrice, maxPrice);
+        return ResponseEntity.ok().eTag(ProductETags.of(productDto, null)).body(productDto);
     }
 
     @DeleteMapping(value = "/{id}")
-    @ApiOperation(value = "Remove product")
-    public ResponseEntity<ProductDto> delete(@PathVariable String id) {
-        productService.delete(id);
+    @ApiOperation(value = "Remove product, only while it still matches the If-Match ETag when one is sent")
+    @ApiResponses({@ApiResponse(code = 412, message = "Precondition Failed")})
+    public ResponseEntity<ProductDto> delete(@PathVariable String id,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            productService.delete(id, ProductETags.expectedVersions(ifMatch));
+        } catch (ProductNotFoundException e) {
+            throw ProductETags.notFound(ifMatch, e);
+        }
         return ResponseEntity.ok().build();
     }
 }
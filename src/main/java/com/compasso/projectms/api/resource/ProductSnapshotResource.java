@@ -0,0 +1,51 @@
+package com.compasso.projectms.api.resource;
+
+import com.compasso.projectms.api.dto.ProductSnapshotDto;
+import com.compasso.projectms.domain.service.exceptions.ProductNotFoundException;
+import com.compasso.projectms.domain.snapshot.ProductSnapshot;
+import com.compasso.projectms.domain.snapshot.ProductSnapshotStore;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@Api(value = "Product snapshot")
+@RestController
+@RequestMapping(value = "/products/snapshot")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProductSnapshotResource {
+
+    private final ProductSnapshotStore productSnapshotStore;
+
+    @Autowired
+    public ProductSnapshotResource(ProductSnapshotStore productSnapshotStore) {
+        this.productSnapshotStore = productSnapshotStore;
+    }
+
+    @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Write a snapshot of the catalog and publish it to the replicas")
+    public ResponseEntity<ProductSnapshotDto> publish() throws IOException {
+        if (!productSnapshotStore.isEnabled()) {
+            throw new ProductNotFoundException("product.snapshot.file is not set");
+        }
+        return ResponseEntity.ok(new ProductSnapshotDto(productSnapshotStore.publish()));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Snapshot this instance serves reads from")
+    public ResponseEntity<ProductSnapshotDto> current() {
+        ProductSnapshot snapshot = productSnapshotStore.current();
+        if (snapshot == null) {
+            throw new ProductNotFoundException("No snapshot is served");
+        }
+        return ResponseEntity.ok(new ProductSnapshotDto(snapshot));
+    }
+}
@@ -0,0 +1,81 @@
+package com.compasso.projectms.api.resource;
+
+import com.compasso.projectms.api.dto.ProductChangeDto;
+import com.compasso.projectms.api.dto.ProductChangePageDto;
+import com.compasso.projectms.domain.service.ProductChangeFeed;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Same endpoints as {@link ProductChangeResource} for the reactive mode.
+ */
+@Api(value = "Product changes")
+@RestController
+@RequestMapping(value = "/products/changes")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductChangeResource {
+
+    private final ProductChangeFeed productChangeFeed;
+
+    @Autowired
+    public ReactiveProductChangeResource(ProductChangeFeed productChangeFeed) {
+        this.productChangeFeed = productChangeFeed;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Product changes after a sequence, waiting up to wait seconds for the first one")
+    @ApiResponses({@ApiResponse(code = 410, message = "Gone")})
+    public Mono<ResponseEntity<ProductChangePageDto>> changes(
+            @RequestParam(value = "after", defaultValue = "0") long after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "wait", defaultValue = "0") int wait) {
+        int waitSeconds = Math.max(0, Math.min(wait, ProductChangeResource.MAX_WAIT_SECONDS));
+        Mono<List<ProductChangeDto>> changes = waitSeconds == 0
+                ? Mono.fromCallable(() -> productChangeFeed.read(after, limit)).subscribeOn(Schedulers.boundedElastic())
+                : subscribe(after, limit).next()
+                        .timeout(Duration.ofSeconds(waitSeconds), Mono.just(Collections.emptyList()));
+        return changes.map(items -> ResponseEntity.ok(new ProductChangePageDto(items,
+                items.isEmpty() ? after : items.get(items.size() - 1).getSequence())));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ApiOperation(value = "Stream product changes after a sequence as server-sent events")
+    @ApiResponses({@ApiResponse(code = 410, message = "Gone")})
+    public Flux<ServerSentEvent<ProductChangeDto>> stream(
+            @RequestParam(value = "after", defaultValue = "0") long after,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return Flux.defer(() -> subscribe(ProductChangeResource.resumeAfter(after, lastEventId),
+                        ProductChangeFeed.MAX_BATCH_SIZE))
+                .concatMapIterable(changes -> changes)
+                .map(change -> ServerSentEvent.builder(change)
+                        .id(Long.toString(change.getSequence()))
+                        .event(change.getType().name())
+                        .build());
+    }
+
+    private Flux<List<ProductChangeDto>> subscribe(long after, int limit) {
+        return Flux.create(sink -> {
+            ProductChangeFeed.Subscription subscription = productChangeFeed.subscribe(after, limit, sink::next);
+            sink.onDispose(subscription::cancel);
+        });
+    }
+}
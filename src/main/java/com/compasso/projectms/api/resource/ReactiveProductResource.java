@@ -0,0 +1,156 @@
+package com.compasso.projectms.api.resource;
+
+import com.compasso.projectms.api.dto.BatchResultDto;
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.api.dto.ProductLookupDto;
+import com.compasso.projectms.api.dto.ProductPageDto;
+import com.compasso.projectms.domain.service.ProductBatchService;
+import com.compasso.projectms.domain.service.ReactiveProductService;
+import com.compasso.projectms.domain.service.exceptions.PreconditionRequiredException;
+import com.compasso.projectms.domain.service.exceptions.ProductNotFoundException;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.validation.Valid;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * WebFlux version of {@link ProductResource}, serving the same URLs when the application runs
+ * with {@code spring.profiles.active=reactive}. Bulk writes still go through the JDBC batch
+ * path and are moved off the event loop.
+ */
+@Api(value = "Product")
+@RestController
+@RequestMapping(value = "/products")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductResource {
+
+    private final ReactiveProductService productService;
+
+    private final ProductBatchService productBatchService;
+
+    private final boolean requireIfMatch;
+
+    @Autowired
+    public ReactiveProductResource(ReactiveProductService productService, ProductBatchService productBatchService,
+                                   @Value("${product.require-if-match:false}") boolean requireIfMatch) {
+        this.productService = productService;
+        this.productBatchService = productBatchService;
+        this.requireIfMatch = requireIfMatch;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Save product")
+    @ApiResponses({@ApiResponse(code = 201, message = "Created")})
+    public Mono<ResponseEntity<ProductDto>> insert(@Valid @RequestBody ProductDto dto, ServerHttpRequest request) {
+        return productService.insert(dto).map(saved -> {
+            URI uri = UriComponentsBuilder.fromHttpRequest(request)
+                    .path("/{id}")
+                    .buildAndExpand(saved.getId())
+                    .toUri();
+            return ResponseEntity.created(uri).eTag(ProductETags.of(saved)).body(saved);
+        });
+    }
+
+    @PostMapping(value = "/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Save products in bulk, reporting the outcome of each item")
+    public Mono<ResponseEntity<BatchResultDto>> insertAll(@RequestBody List<ProductDto> dtos) {
+        return Mono.fromCallable(() -> ResponseEntity.ok(new BatchResultDto(productBatchService.insertAll(dtos))))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PutMapping(value = "/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Update products in bulk, reporting the outcome of each item")
+    public Mono<ResponseEntity<BatchResultDto>> updateAll(@RequestBody List<ProductDto> dtos) {
+        return Mono.fromCallable(() -> ResponseEntity.ok(new BatchResultDto(productBatchService.updateAll(dtos))))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PutMapping(value = "/{id}",
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Update product, only while it still matches the If-Match ETag when one is sent")
+    @ApiResponses({@ApiResponse(code = 412, message = "Precondition Failed")})
+    public Mono<ResponseEntity<ProductDto>> update(@PathVariable String id, @Valid @RequestBody ProductDto dto,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (requireIfMatch && ifMatch == null) {
+            return Mono.error(new PreconditionRequiredException("If-Match is required"));
+        }
+        return Mono.defer(() -> productService.update(id, dto, ProductETags.expectedVersions(ifMatch)))
+                .onErrorMap(ProductNotFoundException.class, e -> ProductETags.notFound(ifMatch, e))
+                .map(updated -> ResponseEntity.ok().eTag(ProductETags.of(updated)).body(updated));
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Search for a product by its id")
+    public Mono<ResponseEntity<ProductDto>> findById(@PathVariable String id) {
+        return productService.findById(id).map(dto -> ResponseEntity.ok().eTag(ProductETags.of(dto)).body(dto));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Search all products, one keyset page at a time")
+    @ApiResponses({@ApiResponse(code = 500, message = "Internal Error")})
+    public Mono<ResponseEntity<ProductPageDto>> findAll(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "50") int size) {
+        return Mono.defer(() -> productService.findPage(cursor, size))
+                .map(page -> ResponseEntity.ok().eTag(ProductETags.of(page.getItems(), page.getNextCursor())).body(page));
+    }
+
+    @GetMapping(params = "ids", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Search for many products by their comma-separated ids, in the order given")
+    public Mono<ResponseEntity<ProductLookupDto>> findAllById(@RequestParam("ids") List<String> ids) {
+        return productService.findAllById(ids).map(ResponseEntity::ok);
+    }
+
+    @PostMapping(value = "/lookup",
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Search for many products by their ids, in the order given")
+    public Mono<ResponseEntity<ProductLookupDto>> lookup(@RequestBody List<String> ids) {
+        return productService.findAllById(ids).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ApiOperation(value = "Stream all products as newline-delimited JSON")
+    @ApiResponses({@ApiResponse(code = 500, message = "Internal Error")})
+    public Flux<ProductDto> streamAll() {
+        return productService.streamAll();
+    }
+
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Filtered products list")
+    public Mono<ResponseEntity<List<ProductDto>>> filter(
+            @RequestParam(value = "q", required = false) String nameOrDescription,
+            @RequestParam(value = "min_price", required = false) BigDecimal minPrice,
+            @RequestParam(value = "max_price", required = false) BigDecimal maxPrice) {
+        return productService.search(nameOrDescription, minPrice, maxPrice)
+                .map(products -> ResponseEntity.ok().eTag(ProductETags.of(products, null)).body(products));
+    }
+
+    @DeleteMapping(value = "/{id}")
+    @ApiOperation(value = "Remove product, only while it still matches the If-Match ETag when one is sent")
+    @ApiResponses({@ApiResponse(code = 412, message = "Precondition Failed")})
+    public Mono<ResponseEntity<ProductDto>> delete(@PathVariable String id,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return Mono.defer(() -> productService.delete(id, ProductETags.expectedVersions(ifMatch)))
+                .onErrorMap(ProductNotFoundException.class, e -> ProductETags.notFound(ifMatch, e))
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok().<ProductDto>build()));
+    }
+}
@@ -0,0 +1,65 @@
+package com.compasso.projectms.api.resource;
+
+import com.compasso.projectms.api.dto.CacheStatsDto;
+import com.compasso.projectms.api.dto.QueryStatsDto;
+import com.compasso.projectms.config.QueryStatistics;
+import com.compasso.projectms.domain.cache.ProductCache;
+import com.compasso.projectms.domain.cache.ProductSearchCache;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Api(value = "Stats")
+@RestController
+@RequestMapping(value = "/stats")
+public class StatsResource {
+
+    private final ProductCache productCache;
+
+    private final ProductSearchCache productSearchCache;
+
+    private final QueryStatistics queryStatistics;
+
+    @Autowired
+    public StatsResource(ProductCache productCache, ProductSearchCache productSearchCache,
+                         QueryStatistics queryStatistics) {
+        this.productCache = productCache;
+        this.productSearchCache = productSearchCache;
+        this.queryStatistics = queryStatistics;
+    }
+
+    @GetMapping(value = "/product-cache", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Product cache hit, miss and eviction counters")
+    public ResponseEntity<CacheStatsDto> productCache() {
+        return ResponseEntity.ok(new CacheStatsDto(productCache.size(), productCache.stats()));
+    }
+
+    @GetMapping(value = "/search-cache", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "Search result cache hit, miss, eviction and invalidation counters")
+    public ResponseEntity<CacheStatsDto> searchCache() {
+        return ResponseEntity.ok(new CacheStatsDto(productSearchCache.size(), productSearchCache.stats(),
+                productSearchCache.invalidationCount()));
+    }
+
+    @GetMapping(value = "/queries", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation(value = "SQL statements by shape and origin, most total time first")
+    public ResponseEntity<List<QueryStatsDto>> queries() {
+        return ResponseEntity.ok(queryStatistics.shapes().stream().map(QueryStatsDto::new).collect(Collectors.toList()));
+    }
+
+    @DeleteMapping(value = "/queries")
+    @ApiOperation(value = "Reset the SQL statistics")
+    public ResponseEntity<Void> resetQueries() {
+        queryStatistics.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
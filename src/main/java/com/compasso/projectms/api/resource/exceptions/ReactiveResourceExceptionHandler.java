@@ -0,0 +1,104 @@
+package com.compasso.projectms.api.resource.exceptions;
+
+import com.compasso.projectms.domain.service.exceptions.ChangesExpiredException;
+import com.compasso.projectms.domain.service.exceptions.FormatErrorException;
+import com.compasso.projectms.domain.service.exceptions.PreconditionFailedException;
+import com.compasso.projectms.domain.service.exceptions.PreconditionRequiredException;
+import com.compasso.projectms.domain.service.exceptions.ProductNotFoundException;
+import com.compasso.projectms.domain.service.exceptions.ServiceUnavailableException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+/**
+ * Maps the WebFlux equivalents of the errors handled by {@link ResourceExceptionHandler} to the
+ * same status codes and messages.
+ */
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveResourceExceptionHandler {
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<StandardError> handleValidationExceptions(WebExchangeBindException ex) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        StandardError err = new StandardError();
+
+        ex.getBindingResult().getAllErrors().forEach((error) -> {
+            String fieldName = ((FieldError) error).getField();
+            err.setMessage(String.format("The field %s is invalid!", fieldName));
+        });
+
+        err.setStatusCode(status.value());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(ProductNotFoundException.class)
+    public ResponseEntity<StandardError> handleProductNotFound() {
+        HttpStatus status = HttpStatus.NOT_FOUND;
+        StandardError err = new StandardError();
+        err.setStatusCode(status.value());
+        err.setMessage("Resource not found");
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<StandardError> handleServerWebInput(ServerWebInputException ex) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        StandardError err = new StandardError();
+        err.setStatusCode(status.value());
+        err.setMessage(ex.getCause() instanceof DecodingException ? "Invalid Json format" : ex.getReason());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(FormatErrorException.class)
+    public ResponseEntity<StandardError> handleFormatError(FormatErrorException ex) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        StandardError err = new StandardError();
+        err.setStatusCode(status.value());
+        err.setMessage(ex.getMessage());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<StandardError> handlePreconditionFailed(PreconditionFailedException ex) {
+        HttpStatus status = HttpStatus.PRECONDITION_FAILED;
+        StandardError err = new StandardError();
+        err.setStatusCode(status.value());
+        err.setMessage(ex.getMessage());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(PreconditionRequiredException.class)
+    public ResponseEntity<StandardError> handlePreconditionRequired(PreconditionRequiredException ex) {
+        HttpStatus status = HttpStatus.PRECONDITION_REQUIRED;
+        StandardError err = new StandardError();
+        err.setStatusCode(status.value());
+        err.setMessage(ex.getMessage());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(ChangesExpiredException.class)
+    public ResponseEntity<StandardError> handleChangesExpired(ChangesExpiredException ex) {
+        HttpStatus status = HttpStatus.GONE;
+        StandardError err = new StandardError();
+        err.setStatusCode(status.value());
+        err.setMessage(ex.getMessage());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<StandardError> handleServiceUnavailable(ServiceUnavailableException ex) {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        StandardError err = new StandardError();
+        err.setStatusCode(status.value());
+        err.setMessage(ex.getMessage());
+        return ResponseEntity.status(status).header(HttpHeaders.RETRY_AFTER, "1").body(err);
+    }
+}
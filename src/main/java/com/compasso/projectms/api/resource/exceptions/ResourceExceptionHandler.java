@@ -1,6 +1,13 @@
 package com.compasso.projectms.api.resource.exceptions;
 
+import com.compasso.projectms.domain.service.exceptions.ChangesExpiredException;
+import com.compasso.projectms.domain.service.exceptions.FormatErrorException;
+import com.compasso.projectms.domain.service.exceptions.PreconditionFailedException;
+import com.compasso.projectms.domain.service.exceptions.PreconditionRequiredException;
 import com.compasso.projectms.domain.service.exceptions.ProductNotFoundException;
+import com.compasso.projectms.domain.service.exceptions.ServiceUnavailableException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -10,6 +17,7 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ResourceExceptionHandler {
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -43,4 +51,49 @@ public class ResourceExceptionHandler {
         err.setMessage("Invalid Json format");
         return ResponseEntity.status(status).body(err);
     }
+
+    @ExceptionHandler(FormatErrorException.class)
+    public ResponseEntity<StandardError> handleFormatError(FormatErrorException ex) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        StandardError err = new StandardError();
+        err.setStatusCode(status.value());
+        err.setMessage(ex.getMessage());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<StandardError> handlePreconditionFailed(PreconditionFailedException ex) {
+        HttpStatus status = HttpStatus.PRECONDITION_FAILED;
+        StandardError err = new StandardError();
+        err.setStatusCode(status.value());
+        err.setMessage(ex.getMessage());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(PreconditionRequiredException.class)
+    public ResponseEntity<StandardError> handlePreconditionRequired(PreconditionRequiredException ex) {
+        HttpStatus status = HttpStatus.PRECONDITION_REQUIRED;
+        StandardError err = new StandardError();
+        err.setStatusCode(status.value());
+        err.setMessage(ex.getMessage());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(ChangesExpiredException.class)
+    public ResponseEntity<StandardError> handleChangesExpired(ChangesExpiredException ex) {
+        HttpStatus status = HttpStatus.GONE;
+        StandardError err = new StandardError();
+        err.setStatusCode(status.value());
+        err.setMessage(ex.getMessage());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<StandardError> handleServiceUnavailable(ServiceUnavailableException ex) {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        StandardError err = new StandardError();
+        err.setStatusCode(status.value());
+        err.setMessage(ex.getMessage());
+        return ResponseEntity.status(status).header(HttpHeaders.RETRY_AFTER, "1").body(err);
+    }
 }
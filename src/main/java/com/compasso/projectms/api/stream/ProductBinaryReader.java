@@ -0,0 +1,85 @@
+package com.compasso.projectms.api.stream;
+
+import com.compasso.projectms.api.dto.ProductDto;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads streams written by {@link ProductBinaryWriter}.
+ */
+public class ProductBinaryReader {
+
+    private final InputStream in;
+
+    public ProductBinaryReader(InputStream in) throws IOException {
+        this.in = in;
+        byte[] magic = readFully(ProductBinaryWriter.MAGIC.length);
+        if (!Arrays.equals(magic, ProductBinaryWriter.MAGIC)) {
+            throw new IOException("Not a product stream");
+        }
+    }
+
+    /**
+     * Returns the next product, or {@code null} at the end of the stream.
+     */
+    public ProductDto read() throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        readVarint(first);
+
+        ProductDto dto = new ProductDto();
+        dto.setId(readString());
+        dto.setName(readString());
+        dto.setDescription(readString());
+        dto.setPrice(readPrice());
+        return dto;
+    }
+
+    private String readString() throws IOException {
+        int length = readVarint(in.read());
+        return length == 0 ? null : new String(readFully(length - 1), StandardCharsets.UTF_8);
+    }
+
+    private BigDecimal readPrice() throws IOException {
+        int length = readVarint(in.read());
+        if (length == 0) {
+            return null;
+        }
+        BigInteger unscaled = new BigInteger(readFully(length - 1));
+        int scale = readVarint(in.read());
+        return new BigDecimal(unscaled, (scale >>> 1) ^ -(scale & 1));
+    }
+
+    private int readVarint(int first) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b = first;
+        while (true) {
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            b = in.read();
+        }
+    }
+
+    private byte[] readFully(int length) throws IOException {
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length < length) {
+            throw new EOFException();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,91 @@
+package com.compasso.projectms.api.stream;
+
+import com.compasso.projectms.api.dto.ProductDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact, length-prefixed binary encoding of a product stream.
+ *
+ * <pre>
+ * stream  := MAGIC record*
+ * record  := varint(length of body) body
+ * body    := string(id) string(name) string(description) price
+ * string  := varint(0) for null | varint(byte length + 1) utf-8 bytes
+ * price   := varint(0) for null | varint(byte length + 1) unscaled bytes zigzag(scale)
+ * </pre>
+ *
+ * Varints are unsigned LEB128; the scale is zigzag-encoded so negative scales (e.g. {@code 1E+3})
+ * round-trip. The unscaled value is written as big-endian two's-complement bytes, so any
+ * {@link BigDecimal} fits and a price never fails the export halfway through the stream.
+ */
+public class ProductBinaryWriter implements Closeable {
+
+    public static final String MEDIA_TYPE = "application/x-product-binary";
+
+    public static final byte[] MAGIC = {'P', 'R', 'D', 2};
+
+    private final OutputStream out;
+
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+
+    public ProductBinaryWriter(OutputStream out) throws IOException {
+        this.out = out;
+        out.write(MAGIC);
+    }
+
+    public void write(ProductDto dto) {
+        try {
+            record.reset();
+            writeString(record, dto.getId());
+            writeString(record, dto.getName());
+            writeString(record, dto.getDescription());
+            writePrice(record, dto.getPrice());
+
+            writeVarint(out, record.size());
+            record.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static void writePrice(OutputStream out, BigDecimal price) throws IOException {
+        if (price == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] unscaled = price.unscaledValue().toByteArray();
+        writeVarint(out, unscaled.length + 1);
+        out.write(unscaled);
+        writeVarint(out, (price.scale() << 1) ^ (price.scale() >> 31));
+    }
+
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
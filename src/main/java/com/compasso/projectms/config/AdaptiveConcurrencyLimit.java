@@ -0,0 +1,144 @@
+package com.compasso.projectms.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit that adapts to latency, following TCP Vegas: the lowest round trip seen
+ * stands for the unloaded service, and the ratio of a sample to it estimates how many of the
+ * requests in flight are queueing rather than being served. The limit grows while that queue
+ * is small and shrinks once it grows, by steps of {@code log10(limit)}, and backs off by 10%
+ * whenever a request fails. It stays within {@code [min, max]}.
+ *
+ * <p>The unloaded round trip is re-learned every {@code probeInterval} samples, so a lasting
+ * change in the service's baseline latency does not pin the limit. Growth is only considered
+ * while at least half of the limit is in use.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    /**
+     * Factor applied to the limit on a failed request, which suggests overload more strongly
+     * than latency does.
+     */
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final int probeInterval;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile double limit;
+
+    private long noLoadRttNanos;
+
+    private int samplesToProbe;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, int probeInterval) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.probeInterval = probeInterval;
+        this.samplesToProbe = probeInterval;
+    }
+
+    /**
+     * Takes a slot, or returns {@code null} when the limit is reached.
+     */
+    public Permit tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(current + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    synchronized void update(long rttNanos, int inFlightAtStart, boolean dropped) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (--samplesToProbe <= 0) {
+            samplesToProbe = probeInterval;
+            noLoadRttNanos = rttNanos;
+            return;
+        }
+        if (noLoadRttNanos == 0 || rttNanos < noLoadRttNanos) {
+            noLoadRttNanos = rttNanos;
+            return;
+        }
+
+        double current = limit;
+        double step = Math.max(1, Math.log10(current));
+        double next;
+        if (dropped) {
+            next = current * BACKOFF;
+        } else if (inFlightAtStart * 2 < current) {
+            // not using the limit, so the sample says nothing about a larger one
+            return;
+        } else {
+            double queue = Math.ceil(current * (1 - (double) noLoadRttNanos / rttNanos));
+            if (queue <= step) {
+                next = current + 6 * step;
+            } else if (queue < 3 * step) {
+                next = current + step;
+            } else if (queue > 6 * step) {
+                next = current - step;
+            } else {
+                return;
+            }
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    /**
+     * One admitted request; exactly one of {@link #release(boolean)} and {@link #ignore()} has to
+     * be called once it is done.
+     */
+    public final class Permit {
+
+        private final long start = System.nanoTime();
+
+        private final int inFlightAtStart;
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Frees the slot and feeds the request's latency to the limit; {@code dropped} marks a
+         * request that failed or timed out, which counts as a sign of overload.
+         */
+        public void release(boolean dropped) {
+            inFlight.decrementAndGet();
+            update(System.nanoTime() - start, inFlightAtStart, dropped);
+        }
+
+        /**
+         * Frees the slot without a sample, for requests whose duration is not a service time.
+         */
+        public void ignore() {
+            inFlight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.compasso.projectms.config;
+
+import com.compasso.projectms.config.ConcurrencyLimitFilter.Partition;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Load shedding for {@code ProductResource}: point reads, bulk reads and writes each get their
+ * own {@link AdaptiveConcurrencyLimit}, so a burst of searches cannot take the slots of
+ * {@code findById}. Disabled with {@code product.concurrency-limit.enabled=false}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(value = "product.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public ConcurrencyLimitFilter concurrencyLimitFilter(
+            ObjectMapper objectMapper,
+            ObjectProvider<QueryStatistics> queryStatistics,
+            @Value("${product.query.instrumentation.enabled:true}") boolean instrumented,
+            @Value("${product.concurrency-limit.initial-limit:20}") int initialLimit,
+            @Value("${product.concurrency-limit.min-limit:2}") int minLimit,
+            @Value("${product.concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${product.concurrency-limit.probe-interval:1000}") int probeInterval,
+            @Value("${product.concurrency-limit.retry-after:1s}") Duration retryAfter) {
+        Map<Partition, AdaptiveConcurrencyLimit> limits = new EnumMap<>(Partition.class);
+        for (Partition partition : Partition.values()) {
+            limits.put(partition, new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, probeInterval));
+        }
+        LongSupplier statements = instrumented
+                ? () -> queryStatistics.getObject().currentThreadExecutions() : null;
+        return new ConcurrencyLimitFilter(limits, objectMapper, Math.max(1, retryAfter.getSeconds()), statements);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilterRegistration(
+            ConcurrencyLimitFilter concurrencyLimitFilter) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(concurrencyLimitFilter);
+        registration.addUrlPatterns("/products", "/products/*");
+        // after the request metrics filter, so shed requests still show up in http.server.requests
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder concurrencyLimitMetrics(ConcurrencyLimitFilter concurrencyLimitFilter) {
+        return registry -> {
+            for (Partition partition : Partition.values()) {
+                AdaptiveConcurrencyLimit limit = concurrencyLimitFilter.limit(partition);
+                String tag = partition.name().toLowerCase(Locale.ROOT);
+                Gauge.builder("product.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                        .tag("partition", tag).register(registry);
+                Gauge.builder("product.concurrency.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                        .tag("partition", tag).register(registry);
+                FunctionCounter.builder("product.concurrency.rejected", limit, AdaptiveConcurrencyLimit::getRejectedCount)
+                        .tag("partition", tag).register(registry);
+            }
+        };
+    }
+}
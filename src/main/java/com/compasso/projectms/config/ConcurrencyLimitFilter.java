@@ -0,0 +1,199 @@
+package com.compasso.projectms.config;
+
+import com.compasso.projectms.api.resource.exceptions.StandardError;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Admits the {@code /products} requests served by {@code ProductResource} through an
+ * {@link AdaptiveConcurrencyLimit} per {@link Partition}, and answers the rest with a 503 and
+ * {@code Retry-After} right away instead of queueing them in front of the database. The
+ * change feed, exports, imports and snapshots are not limited.
+ *
+ * <p>Only requests that ran SQL feed their duration to the limit, as counted by
+ * {@link QueryStatistics} on the request's thread, and of those neither 304s nor 4xx. Responses
+ * answered from memory (the JSON and product caches, the snapshot, the id filter) take
+ * microseconds; sampling them would make a flood of them pass for the unloaded latency and shed
+ * the reads that reach the database. Without query instrumentation every 2xx is sampled.
+ * Asynchronous responses, such as the NDJSON stream, keep their slot until they complete but
+ * are not sampled either.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    public enum Partition {
+        /** {@code GET /products/{id}} */
+        FIND,
+        /** Pages, streams, searches and multi-gets. */
+        SEARCH,
+        /** Inserts, updates and deletes, single or in bulk. */
+        WRITE
+    }
+
+    private static final String PREFIX = "/products";
+
+    /**
+     * Path segments after {@link #PREFIX} that are not product ids.
+     */
+    private static final Set<String> NAMED_SEGMENTS = new HashSet<>(Arrays.asList(
+            "search", "lookup", "batch", "changes", "export", "import", "imports", "snapshot"));
+
+    private final Map<Partition, AdaptiveConcurrencyLimit> limits;
+
+    private final ObjectMapper objectMapper;
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Statements started on the current thread, or {@code null} when they are not counted.
+     */
+    private final LongSupplier statements;
+
+    public ConcurrencyLimitFilter(Map<Partition, AdaptiveConcurrencyLimit> limits, ObjectMapper objectMapper,
+                                  long retryAfterSeconds, LongSupplier statements) {
+        this.limits = new EnumMap<>(limits);
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.statements = statements;
+    }
+
+    public AdaptiveConcurrencyLimit limit(Partition partition) {
+        return limits.get(partition);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Partition partition = partition(request.getMethod(),
+                request.getRequestURI().substring(request.getContextPath().length()));
+        AdaptiveConcurrencyLimit limit = partition == null ? null : limits.get(partition);
+        if (limit == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveConcurrencyLimit.Permit permit = limit.tryAcquire();
+        if (permit == null) {
+            reject(response, partition);
+            return;
+        }
+        long statementsAtStart = statements == null ? 0 : statements.getAsLong();
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new Release(permit));
+            } else if (!completed || response.getStatus() >= 500) {
+                permit.release(true);
+            } else if (isSampled(response.getStatus(), statementsAtStart)) {
+                permit.release(false);
+            } else {
+                permit.ignore();
+            }
+        }
+    }
+
+    private boolean isSampled(int status, long statementsAtStart) {
+        return status != HttpServletResponse.SC_NOT_MODIFIED && status < 400
+                && (statements == null || statements.getAsLong() > statementsAtStart);
+    }
+
+    static Partition partition(String method, String path) {
+        if (!path.equals(PREFIX) && !path.startsWith(PREFIX + "/")) {
+            return null;
+        }
+        String[] segments = path.substring(PREFIX.length()).split("/");
+        // "" for /products, otherwise the segment after it
+        String first = segments.length > 1 ? segments[1] : "";
+        if (segments.length > 2 || (segments.length > 1 && first.isEmpty())) {
+            return null;
+        }
+        boolean named = NAMED_SEGMENTS.contains(first);
+        switch (method) {
+            case "GET":
+            case "HEAD":
+                if (first.isEmpty() || first.equals("search")) {
+                    return Partition.SEARCH;
+                }
+                return named ? null : Partition.FIND;
+            case "POST":
+                if (first.equals("lookup")) {
+                    return Partition.SEARCH;
+                }
+                return first.isEmpty() || first.equals("batch") ? Partition.WRITE : null;
+            case "PUT":
+                return first.equals("batch") || (!first.isEmpty() && !named) ? Partition.WRITE : null;
+            case "DELETE":
+                return !first.isEmpty() && !named ? Partition.WRITE : null;
+            default:
+                return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, Partition partition) throws IOException {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new StandardError(status.value(),
+                "Too many concurrent " + partition.name().toLowerCase(Locale.ROOT) + " requests"));
+    }
+
+    private static final class Release implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimit.Permit permit;
+
+        private boolean released;
+
+        private Release(AdaptiveConcurrencyLimit.Permit permit) {
+            this.permit = permit;
+        }
+
+        private synchronized void release() {
+            if (!released) {
+                released = true;
+                permit.ignore();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // the same request dispatched again keeps its slot
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.compasso.projectms.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reports every statement run on its connections to {@link QueryStatistics}: the SQL, its
+ * parameters, the time spent in the driver executing it and fetching its rows, and the number
+ * of rows read or updated. A query is recorded once its result set is exhausted or closed, so
+ * the time a caller spends between rows, e.g. while streaming an export, is not counted.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private final QueryStatistics queryStatistics;
+
+    public InstrumentedDataSource(DataSource target, QueryStatistics queryStatistics) {
+        super(target);
+        this.queryStatistics = queryStatistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return instrumented(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return instrumented(super.getConnection(username, password));
+    }
+
+    private Connection instrumented(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof PreparedStatement && "prepareStatement".equals(method.getName())) {
+                return new Execution(connection, (String) args[0]).proxy((PreparedStatement) result);
+            }
+            if (result instanceof Statement && "createStatement".equals(method.getName())) {
+                return new Execution(connection, null).proxy((Statement) result);
+            }
+            return result;
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * State of one statement: its bound parameters and the query whose rows are still being read.
+     */
+    private final class Execution {
+
+        private final Connection connection;
+
+        private final String preparedSql;
+
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+
+        private Pending pending;
+
+        private Execution(Connection connection, String preparedSql) {
+            this.connection = connection;
+            this.preparedSql = preparedSql;
+        }
+
+        private <S extends Statement> S proxy(S statement) {
+            Class<?> type = statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+            @SuppressWarnings("unchecked")
+            S proxy = (S) InstrumentedDataSource.proxy(type, (self, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+                        && statement instanceof PreparedStatement) {
+                    parameters.put((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+                } else if ("clearParameters".equals(name)) {
+                    parameters.clear();
+                } else if (name.startsWith("execute")) {
+                    return execute(statement, method, args);
+                } else if ("getResultSet".equals(name)) {
+                    ResultSet resultSet = (ResultSet) invoke(statement, method, args);
+                    return resultSet == null || pending == null ? resultSet : pending.proxy(resultSet);
+                } else if ("close".equals(name)) {
+                    finish();
+                }
+                return invoke(statement, method, args);
+            });
+            return proxy;
+        }
+
+        private Object execute(Statement statement, Method method, Object[] args) throws Throwable {
+            finish();
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            queryStatistics.executing();
+            long start = System.nanoTime();
+            Object result = invoke(statement, method, args);
+            long nanos = System.nanoTime() - start;
+            if (sql == null) {
+                return result;
+            }
+            if (result instanceof ResultSet) {
+                pending = new Pending(sql, nanos);
+                return pending.proxy((ResultSet) result);
+            }
+            if (result instanceof Boolean && (Boolean) result) {
+                pending = new Pending(sql, nanos);
+            } else if (result instanceof Boolean) {
+                queryStatistics.record(sql, parameters(), nanos, statement.getUpdateCount(), connection);
+            } else {
+                queryStatistics.record(sql, parameters(), nanos, updated(result), connection);
+            }
+            return result;
+        }
+
+        private void finish() {
+            if (pending != null) {
+                Pending finished = pending;
+                pending = null;
+                queryStatistics.record(finished.sql, parameters(), finished.nanos, finished.rows, connection);
+            }
+        }
+
+        private List<Object> parameters() {
+            List<Object> values = new ArrayList<>(parameters.size());
+            parameters.forEach((index, value) -> {
+                while (values.size() < index - 1) {
+                    values.add(null);
+                }
+                values.add(value);
+            });
+            return values;
+        }
+
+        private long updated(Object result) {
+            long rows = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    rows += Math.max(count, 0);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    rows += Math.max(count, 0);
+                }
+            } else if (result instanceof Number) {
+                rows = ((Number) result).longValue();
+            }
+            return rows;
+        }
+
+        private final class Pending {
+
+            private final String sql;
+
+            private long nanos;
+
+            private long rows;
+
+            private Pending(String sql, long nanos) {
+                this.sql = sql;
+                this.nanos = nanos;
+            }
+
+            private ResultSet proxy(ResultSet resultSet) {
+                return InstrumentedDataSource.proxy(ResultSet.class, (self, method, args) -> {
+                    if ("next".equals(method.getName())) {
+                        long start = System.nanoTime();
+                        boolean next = (Boolean) invoke(resultSet, method, args);
+                        nanos += System.nanoTime() - start;
+                        if (next) {
+                            rows++;
+                        } else if (pending == this) {
+                            finish();
+                        }
+                        return next;
+                    }
+                    if ("close".equals(method.getName()) && pending == this) {
+                        finish();
+                    }
+                    return invoke(resultSet, method, args);
+                });
+            }
+        }
+    }
+}
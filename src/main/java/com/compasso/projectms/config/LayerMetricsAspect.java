@@ -0,0 +1,88 @@
+package com.compasso.projectms.config;
+
+import com.compasso.projectms.domain.repository.QueryOrigin;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every call into the service and repository layers, tagged with the method and with
+ * the URI pattern of the request being served, so each endpoint's latency can be broken
+ * down by layer. Repository timings include the SQL they run. Methods returning a reactive
+ * {@code Publisher} are skipped, since they return before their work runs.
+ *
+ * <p>Repository calls also set the {@link QueryOrigin} their SQL is attributed to in
+ * {@link QueryStatistics}.
+ */
+@Aspect
+@Component
+public class LayerMetricsAspect {
+
+    public static final String SERVICE_TIMER = "product.service";
+
+    public static final String REPOSITORY_TIMER = "product.repository";
+
+    private static final String REPOSITORY_PACKAGE = QueryOrigin.class.getPackage().getName();
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public LayerMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("within(com.compasso.projectms.domain.service..*) && execution(public * *(..))"
+            + " && !execution(org.reactivestreams.Publisher+ *(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint);
+    }
+
+    @Around("within(com.compasso.projectms.domain.repository..*)"
+            + " || this(org.springframework.data.repository.Repository+)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        String previous = QueryOrigin.enter(method(joinPoint));
+        try {
+            return time(REPOSITORY_TIMER, joinPoint);
+        } finally {
+            QueryOrigin.restore(previous);
+        }
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tag("method", method(joinPoint))
+                    .tag("uri", RequestMetrics.currentUri())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * {@code Type.method}, naming our repository interface rather than the Spring Data one that
+     * declares inherited methods such as {@code findAll}.
+     */
+    private static String method(ProceedingJoinPoint joinPoint) {
+        Class<?> type = joinPoint.getSignature().getDeclaringType();
+        if (!type.getName().startsWith(REPOSITORY_PACKAGE) && joinPoint.getThis() != null) {
+            for (Class<?> candidate : joinPoint.getThis().getClass().getInterfaces()) {
+                if (candidate.getName().startsWith(REPOSITORY_PACKAGE)) {
+                    type = candidate;
+                    break;
+                }
+            }
+        }
+        return type.getSimpleName() + "." + joinPoint.getSignature().getName();
+    }
+}
@@ -0,0 +1,85 @@
+package com.compasso.projectms.config;
+
+import com.compasso.projectms.domain.cache.ProductCache;
+import com.compasso.projectms.domain.cache.ProductSearchCache;
+import com.compasso.projectms.domain.index.ProductIdFilter;
+import com.compasso.projectms.domain.index.ProductPriceIndex;
+import com.compasso.projectms.domain.index.ProductTextIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   MeterRegistry meterRegistry) {
+        return new TimedJackson2HttpMessageConverter(objectMapper, meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder productCacheMetrics(ProductCache productCache) {
+        return registry -> {
+            FunctionCounter.builder("cache.gets", productCache, cache -> cache.stats().hitCount())
+                    .tag("cache", "product").tag("result", "hit").register(registry);
+            FunctionCounter.builder("cache.gets", productCache, cache -> cache.stats().missCount())
+                    .tag("cache", "product").tag("result", "miss").register(registry);
+            FunctionCounter.builder("cache.evictions", productCache, cache -> cache.stats().evictionCount())
+                    .tag("cache", "product").register(registry);
+            Gauge.builder("cache.size", productCache, ProductCache::size)
+                    .tag("cache", "product").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder productSearchCacheMetrics(ProductSearchCache productSearchCache) {
+        return registry -> {
+            FunctionCounter.builder("cache.gets", productSearchCache, cache -> cache.stats().hitCount())
+                    .tag("cache", "search").tag("result", "hit").register(registry);
+            FunctionCounter.builder("cache.gets", productSearchCache, cache -> cache.stats().missCount())
+                    .tag("cache", "search").tag("result", "miss").register(registry);
+            FunctionCounter.builder("cache.evictions", productSearchCache, cache -> cache.stats().evictionCount())
+                    .tag("cache", "search").register(registry);
+            FunctionCounter.builder("cache.invalidations", productSearchCache, ProductSearchCache::invalidationCount)
+                    .tag("cache", "search").register(registry);
+            Gauge.builder("cache.size", productSearchCache, ProductSearchCache::size)
+                    .tag("cache", "search").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder productIndexMetrics(ProductTextIndex productTextIndex, ProductPriceIndex productPriceIndex) {
+        return registry -> {
+            Gauge.builder("product.index.size", productTextIndex, ProductTextIndex::size)
+                    .tag("index", "text").register(registry);
+            Gauge.builder("product.index.terms", productTextIndex, ProductTextIndex::termCount)
+                    .tag("index", "text").register(registry);
+            Gauge.builder("product.index.size", productPriceIndex, ProductPriceIndex::size)
+                    .tag("index", "price").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder productIdFilterMetrics(ProductIdFilter productIdFilter) {
+        return registry -> {
+            FunctionCounter.builder("product.id-filter.checks", productIdFilter, ProductIdFilter::absentCount)
+                    .tag("result", "absent").register(registry);
+            FunctionCounter.builder("product.id-filter.checks", productIdFilter, ProductIdFilter::presentCount)
+                    .tag("result", "maybe").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder productCoalescingMetrics(ProductCache productCache, ProductSearchCache productSearchCache) {
+        return registry -> {
+            productCache.loads().bindTo(registry, "findById");
+            productSearchCache.searches().bindTo(registry, "search");
+        };
+    }
+}
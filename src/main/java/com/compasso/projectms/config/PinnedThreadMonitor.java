@@ -0,0 +1,76 @@
+package com.compasso.projectms.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.EventSettings;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Streams the JFR {@code jdk.VirtualThreadPinned} event, which fires when a virtual thread
+ * blocks while pinned to its carrier (inside {@code synchronized} or a native frame), and
+ * records it in the {@code product.virtual-threads.pinned} timer with a warning naming the
+ * frames that held the carrier. The JFR streaming API is reached reflectively so the class
+ * still compiles for Java 11.
+ */
+public class PinnedThreadMonitor implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final Duration THRESHOLD = Duration.ofMillis(20);
+
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Timer pinned;
+
+    private AutoCloseable stream;
+
+    public PinnedThreadMonitor(MeterRegistry meterRegistry) {
+        this.pinned = Timer.builder("product.virtual-threads.pinned")
+                .description("Time virtual threads spent blocked while pinned to their carrier")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Class<?> type = Class.forName("jdk.jfr.consumer.RecordingStream");
+        Object recordingStream = type.getConstructor().newInstance();
+        EventSettings settings = (EventSettings) type.getMethod("enable", String.class)
+                .invoke(recordingStream, PINNED_EVENT);
+        settings.withThreshold(THRESHOLD).withStackTrace();
+        Consumer<RecordedEvent> handler = this::onPinned;
+        type.getMethod("onEvent", String.class, Consumer.class).invoke(recordingStream, PINNED_EVENT, handler);
+        type.getMethod("startAsync").invoke(recordingStream);
+        stream = (AutoCloseable) recordingStream;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+        if (event.getStackTrace() != null) {
+            List<RecordedFrame> frames = event.getStackTrace().getFrames();
+            log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(),
+                    frames.stream().limit(LOGGED_FRAMES)
+                            .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                                    + ":" + frame.getLineNumber())
+                            .collect(Collectors.joining(" <- ")));
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
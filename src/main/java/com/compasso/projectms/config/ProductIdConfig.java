@@ -0,0 +1,17 @@
+package com.compasso.projectms.config;
+
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Applies {@code product.id.node} to the id generator. Every instance writing to the same
+ * database needs its own node id, from 0 to {@value ProductIdGenerator#MAX_NODE}.
+ */
+@Configuration
+public class ProductIdConfig {
+
+    public ProductIdConfig(@Value("${product.id.node:0}") int node) {
+        ProductIdGenerator.setNode(node);
+    }
+}
@@ -0,0 +1,32 @@
+package com.compasso.projectms.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the data source in an {@link InstrumentedDataSource}, outside the wrappers applied by
+ * ordered post-processors such as the virtual-thread connection limit. Disabled with
+ * {@code product.query.instrumentation.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(value = "product.query.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryInstrumentationConfig {
+
+    @Bean
+    public static BeanPostProcessor instrumentedDataSourcePostProcessor(ObjectProvider<QueryStatistics> queryStatistics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof InstrumentedDataSource)) {
+                    return new InstrumentedDataSource((DataSource) bean, queryStatistics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
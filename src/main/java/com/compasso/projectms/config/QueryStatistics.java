@@ -0,0 +1,260 @@
+package com.compasso.projectms.config;
+
+import com.compasso.projectms.domain.repository.QueryOrigin;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregates the SQL run through {@link InstrumentedDataSource} by shape: the statement with
+ * whitespace, compared numbers and {@code IN} lists normalized, together with the
+ * {@link QueryOrigin} that issued it. Each execution is also timed as {@code product.query},
+ * tagged with its origin.
+ *
+ * <p>Executions slower than {@code product.query.slow-threshold} are logged with their
+ * parameters, and at most once per {@code product.query.explain-interval} and shape with the
+ * database's plan for them, which is kept as the shape's last plan.
+ */
+@Component
+public class QueryStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryStatistics.class);
+
+    public static final String QUERY_TIMER = "product.query";
+
+    /**
+     * Further shapes are counted together under {@link #OTHER}, so generated SQL cannot grow the map.
+     */
+    static final int MAX_SHAPES = 1000;
+
+    static final String OTHER = "(other)";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Numbers compared against, which Hibernate inlines for criteria literals.
+     */
+    private static final Pattern NUMBER = Pattern.compile("(?<=[=<>] ?)-?\\d+(\\.\\d+)?\\b");
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+
+    private static final int MAX_LOGGED_PARAMETERS = 20;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final long slowThresholdNanos;
+
+    private final long explainIntervalNanos;
+
+    private final ConcurrentMap<String, Shape> shapes = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<long[]> executions = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Autowired
+    public QueryStatistics(ObjectProvider<MeterRegistry> meterRegistry,
+                           @Value("${product.query.slow-threshold:100ms}") Duration slowThreshold,
+                           @Value("${product.query.explain-interval:1m}") Duration explainInterval) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.explainIntervalNanos = explainInterval.toNanos();
+    }
+
+    /**
+     * Records one execution of {@code sql} by the current origin. {@code connection} is only used
+     * to explain the statement when it was slow, and must not itself be instrumented.
+     */
+    public void record(String sql, List<Object> parameters, long nanos, long rows, Connection connection) {
+        String origin = QueryOrigin.current();
+        String normalized = normalize(sql);
+        Shape shape = shape(origin, normalized);
+        shape.record(nanos, rows);
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Timer.builder(QUERY_TIMER).tag("origin", origin).register(registry).record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        if (nanos >= slowThresholdNanos) {
+            shape.slow.increment();
+            String plan = shape.explainDue(explainIntervalNanos) ? explain(sql, parameters, connection) : null;
+            if (plan != null) {
+                shape.lastPlan = plan;
+            }
+            log.warn("Slow query from {} took {} ms and returned {} rows: {} with parameters {}{}", origin,
+                    TimeUnit.NANOSECONDS.toMillis(nanos), rows, normalized, loggable(parameters),
+                    plan == null ? "" : "\n" + plan);
+        }
+    }
+
+    /**
+     * Counts a statement started on the current thread.
+     */
+    void executing() {
+        executions.get()[0]++;
+    }
+
+    /**
+     * Statements started on the current thread so far, so a caller can tell whether a piece of
+     * work reached the database.
+     */
+    public long currentThreadExecutions() {
+        return executions.get()[0];
+    }
+
+    /**
+     * Every shape recorded since the last {@link #reset()}, most total time first.
+     */
+    public List<Shape> shapes() {
+        return shapes.values().stream()
+                .sorted(Comparator.comparingLong(Shape::getTotalNanos).reversed())
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    static String normalize(String sql) {
+        String collapsed = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        String parameterized = NUMBER.matcher(collapsed).replaceAll("?");
+        return IN_LIST.matcher(parameterized).replaceAll("in (?, ...)");
+    }
+
+    private Shape shape(String origin, String sql) {
+        String key = origin + '\n' + sql;
+        Shape shape = shapes.get(key);
+        if (shape != null) {
+            return shape;
+        }
+        if (shapes.size() >= MAX_SHAPES) {
+            return shapes.computeIfAbsent(OTHER, ignored -> new Shape(OTHER, OTHER));
+        }
+        return shapes.computeIfAbsent(key, ignored -> new Shape(origin, sql));
+    }
+
+    private static String explain(String sql, List<Object> parameters, Connection connection) {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    if (plan.length() > 0) {
+                        plan.append('\n');
+                    }
+                    plan.append(result.getString(1));
+                }
+            }
+            return plan.toString();
+        } catch (SQLException | RuntimeException e) {
+            log.debug("Could not explain {}", sql, e);
+            return null;
+        }
+    }
+
+    private static List<Object> loggable(List<Object> parameters) {
+        return parameters.size() <= MAX_LOGGED_PARAMETERS ? parameters : parameters.subList(0, MAX_LOGGED_PARAMETERS);
+    }
+
+    public static final class Shape {
+
+        private final String origin;
+
+        private final String sql;
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAdder rows = new LongAdder();
+
+        private final LongAdder slow = new LongAdder();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private final ConcurrentHistogram histogram = new ConcurrentHistogram(3);
+
+        private final AtomicLong lastExplained = new AtomicLong(System.nanoTime() - Long.MAX_VALUE / 2);
+
+        private volatile String lastPlan;
+
+        private Shape(String origin, String sql) {
+            this.origin = origin;
+            this.sql = sql;
+        }
+
+        private void record(long nanos, long rows) {
+            count.increment();
+            totalNanos.add(nanos);
+            if (rows > 0) {
+                this.rows.add(rows);
+            }
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            histogram.recordValue(Math.max(nanos, 0));
+        }
+
+        private boolean explainDue(long intervalNanos) {
+            long now = System.nanoTime();
+            long last = lastExplained.get();
+            return now - last >= intervalNanos && lastExplained.compareAndSet(last, now);
+        }
+
+        public String getOrigin() {
+            return origin;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public long getSlowCount() {
+            return slow.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getPercentileNanos(double percentile) {
+            return histogram.getValueAtPercentile(percentile);
+        }
+
+        public String getLastPlan() {
+            return lastPlan;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.compasso.projectms.config;
+
+import com.compasso.projectms.domain.service.ProductChangeFeed;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read replicas ({@code product.replicas.urls}, comma separated): the data source becomes a
+ * {@link ReadWriteRoutingDataSource} over the primary and one Hikari pool per replica, behind a
+ * {@link LazyConnectionDataSourceProxy}. Replicas use the primary's credentials unless
+ * {@code product.replicas.username} and {@code password} are set, and must replicate the
+ * {@code product_change} table, which their lag is measured by.
+ */
+@Configuration
+@ConditionalOnExpression("'${product.replicas.urls:}' != ''")
+public class ReadReplicaConfig {
+
+    /**
+     * Hikari only applies its default pool size when the pool starts.
+     */
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public static ReadWriteRoutingDataSourcePostProcessor readWriteRoutingDataSourcePostProcessor(
+            Environment environment) {
+        return new ReadWriteRoutingDataSourcePostProcessor(environment);
+    }
+
+    private static HikariDataSource replica(Binder binder, String name, String url) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName(name);
+        replica.setJdbcUrl(url);
+        replica.setUsername(binder.bind("product.replicas.username", String.class)
+                .orElseGet(() -> binder.bind("spring.datasource.username", String.class).orElse("sa")));
+        replica.setPassword(binder.bind("product.replicas.password", String.class)
+                .orElseGet(() -> binder.bind("spring.datasource.password", String.class).orElse("")));
+        replica.setMaximumPoolSize(binder.bind("product.replicas.pool-size", Integer.class)
+                .orElseGet(() -> binder.bind("spring.datasource.hikari.maximum-pool-size", Integer.class)
+                        .orElse(HIKARI_DEFAULT_POOL_SIZE)));
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(DataSource dataSource,
+                                               @Value("${product.replicas.lag-check-interval:1s}") Duration interval)
+            throws SQLException {
+        return new ReplicaLagMonitor(dataSource.unwrap(ReadWriteRoutingDataSource.class), interval);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilterRegistration(
+            ObjectProvider<ProductChangeFeed> productChangeFeed,
+            @Value("${product.replicas.stickiness:1m}") Duration stickiness) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(
+                new ReadYourWritesFilter(() -> productChangeFeed.getObject().head(),
+                        () -> productChangeFeed.getObject().committedOnCurrentThread(), stickiness));
+        registration.addUrlPatterns("/products", "/products/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder readReplicaMetrics(DataSource dataSource) throws SQLException {
+        ReadWriteRoutingDataSource routing = dataSource.unwrap(ReadWriteRoutingDataSource.class);
+        return registry -> {
+            FunctionCounter.builder("product.replicas.connections", routing,
+                            ReadWriteRoutingDataSource::getPrimaryConnectionCount)
+                    .tag("target", ReadWriteRoutingDataSource.PRIMARY).register(registry);
+            for (ReadWriteRoutingDataSource.Replica replica : routing.getReplicas()) {
+                FunctionCounter.builder("product.replicas.connections", replica,
+                                ReadWriteRoutingDataSource.Replica::getConnectionCount)
+                        .tag("target", replica.getName()).register(registry);
+                TimeGauge.builder("product.replicas.lag", replica, TimeUnit.MILLISECONDS,
+                                r -> r.getLag().toMillis())
+                        .tag("replica", replica.getName()).register(registry);
+                Gauge.builder("product.replicas.eligible", replica, r -> r.isEligible() ? 1 : 0)
+                        .tag("replica", replica.getName()).register(registry);
+            }
+        };
+    }
+
+    /**
+     * Declared as the bean's type so the context sees it is {@link Ordered}: after the
+     * virtual-thread connection limit, which then only guards the primary, and before the query
+     * instrumentation, which then sees every connection.
+     */
+    public static class ReadWriteRoutingDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+        private final Environment environment;
+
+        ReadWriteRoutingDataSourcePostProcessor(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE + 1;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource) || bean instanceof ReadWriteRoutingDataSource
+                    || bean instanceof LazyConnectionDataSourceProxy || bean instanceof InstrumentedDataSource) {
+                return bean;
+            }
+            Map<String, DataSource> replicas = new LinkedHashMap<>();
+            Binder binder = Binder.get(environment);
+            for (String url : binder.bind("product.replicas.urls", String[].class).orElse(new String[0])) {
+                String name = "replica-" + replicas.size();
+                replicas.put(name, replica(binder, name, url.trim()));
+            }
+            Duration maxLag = binder.bind("product.replicas.max-lag", Duration.class)
+                    .orElse(Duration.ofSeconds(5));
+            return new LazyConnectionDataSourceProxy(
+                    new ReadWriteRoutingDataSource((DataSource) bean, replicas, maxLag));
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.compasso.projectms.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends read-only transactions to a read replica and everything else, writes and reads outside
+ * a transaction, to the primary. It has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so the connection
+ * is only fetched once the transaction's read-only flag is known.
+ *
+ * <p>Replicas are eligible while their lag, as measured by {@link #checkReplicas()} against the
+ * product change feed, stays within {@code maxLag}; they take turns among the eligible ones and
+ * reads fall back to the primary when there is none. A thread can also require a replica to
+ * have applied a change feed sequence ({@link #begin(long)}), e.g. the one a client got back
+ * from its own write, and once it ran a read-write transaction its later reads stay on the
+ * primary until {@link #end()}.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Context> CONTEXT = new ThreadLocal<>();
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final Duration maxLag;
+
+    private final Clock clock;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final LongAdder primaryConnections = new LongAdder();
+
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag) {
+        this(primary, replicas, maxLag, Clock.systemUTC());
+    }
+
+    ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag, Clock clock) {
+        this.primary = primary;
+        this.maxLag = maxLag;
+        this.clock = clock;
+        List<Replica> list = new ArrayList<>();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach((name, dataSource) -> {
+            list.add(new Replica(name, dataSource));
+            targets.put(name, dataSource);
+        });
+        this.replicas = Collections.unmodifiableList(list);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Makes reads on the current thread wait for the replicas to apply change feed sequence
+     * {@code minSequence}, or go to the primary; {@code 0} requires nothing.
+     */
+    public static void begin(long minSequence) {
+        CONTEXT.set(new Context(minSequence));
+    }
+
+    /**
+     * Whether the current thread ran a read-write transaction since {@link #begin(long)}.
+     */
+    public static boolean wrote() {
+        Context context = CONTEXT.get();
+        return context != null && context.wrote;
+    }
+
+    public static void end() {
+        CONTEXT.remove();
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public long getPrimaryConnectionCount() {
+        return primaryConnections.sum();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Context context = CONTEXT.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (context != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                context.wrote = true;
+            }
+            primaryConnections.increment();
+            return PRIMARY;
+        }
+        if (context != null && context.wrote) {
+            // read-your-writes within the request
+            primaryConnections.increment();
+            return PRIMARY;
+        }
+        long minSequence = context == null ? 0 : context.minSequence;
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.isEligible(minSequence)) {
+                replica.connections.increment();
+                return replica.name;
+            }
+        }
+        primaryConnections.increment();
+        return PRIMARY;
+    }
+
+    /**
+     * Compares each replica's latest change feed sequence with the primary's; a replica that is
+     * behind lags by the age of the oldest change it is missing. Replicas that cannot be queried
+     * become ineligible until the next successful check.
+     */
+    public void checkReplicas() {
+        JdbcTemplate primaryTemplate = new JdbcTemplate(primary);
+        Long head;
+        try {
+            head = primaryTemplate.queryForObject("SELECT MAX(sequence) FROM product_change", Long.class);
+        } catch (RuntimeException e) {
+            log.warn("Could not read the change feed head from the primary", e);
+            return;
+        }
+        long primarySequence = head == null ? 0 : head;
+        Instant now = clock.instant();
+        for (Replica replica : replicas) {
+            try {
+                Long applied = new JdbcTemplate(replica.dataSource)
+                        .queryForObject("SELECT MAX(sequence) FROM product_change", Long.class);
+                long appliedSequence = applied == null ? 0 : applied;
+                Duration lag = Duration.ZERO;
+                if (appliedSequence < primarySequence) {
+                    Timestamp missingSince = primaryTemplate.queryForObject(
+                            "SELECT MIN(changed_at) FROM product_change WHERE sequence > ?", Timestamp.class,
+                            appliedSequence);
+                    if (missingSince != null && missingSince.toInstant().isBefore(now)) {
+                        lag = Duration.between(missingSince.toInstant(), now);
+                    }
+                }
+                replica.update(appliedSequence, lag, true);
+            } catch (RuntimeException e) {
+                if (!replica.failing) {
+                    log.warn("Read replica {} failed its lag check", replica.name, e);
+                }
+                replica.update(replica.appliedSequence, replica.lag, false);
+            }
+        }
+    }
+
+    private static final class Context {
+
+        private final long minSequence;
+
+        private boolean wrote;
+
+        private Context(long minSequence) {
+            this.minSequence = minSequence;
+        }
+    }
+
+    public final class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private final LongAdder connections = new LongAdder();
+
+        private volatile long appliedSequence;
+
+        private volatile Duration lag = Duration.ZERO;
+
+        /**
+         * Unknown until the first check.
+         */
+        private volatile boolean healthy;
+
+        private volatile boolean failing;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private void update(long appliedSequence, Duration lag, boolean healthy) {
+            this.appliedSequence = appliedSequence;
+            this.lag = lag;
+            this.healthy = healthy;
+            this.failing = !healthy;
+        }
+
+        private boolean isEligible(long minSequence) {
+            return healthy && lag.compareTo(maxLag) <= 0 && appliedSequence >= minSequence;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public boolean isEligible() {
+            return isEligible(0);
+        }
+
+        public long getAppliedSequence() {
+            return appliedSequence;
+        }
+
+        public Duration getLag() {
+            return lag;
+        }
+
+        public long getConnectionCount() {
+            return connections.sum();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.compasso.projectms.config;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-your-writes across requests: a response to a request that wrote to the primary carries
+ * a change feed sequence at least as high as the one its own write appended, in the {@value #HEADER} header and cookie, and
+ * requests sending it back are only read from replicas that applied that sequence. The cookie
+ * expires after {@code stickiness}, by when the replicas are expected to have caught up.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Product-Sequence";
+
+    public static final String COOKIE = "product_sequence";
+
+    private final LongSupplier head;
+
+    private final LongSupplier ownSequence;
+
+    private final int stickinessSeconds;
+
+    /**
+     * @param head        the latest change feed sequence committed on the primary
+     * @param ownSequence the latest change feed sequence appended by a committed write of the
+     *                    current thread
+     */
+    public ReadYourWritesFilter(LongSupplier head, LongSupplier ownSequence, Duration stickiness) {
+        this.head = head;
+        this.ownSequence = ownSequence;
+        this.stickinessSeconds = (int) Math.max(1, stickiness.getSeconds());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReadWriteRoutingDataSource.begin(minSequence(request));
+        SequenceResponse wrapped = new SequenceResponse(response);
+        try {
+            chain.doFilter(request, wrapped);
+        } finally {
+            if (!response.isCommitted()) {
+                wrapped.writeSequence();
+            }
+            ReadWriteRoutingDataSource.end();
+        }
+    }
+
+    static long minSequence(HttpServletRequest request) {
+        String value = request.getHeader(HEADER);
+        if (value == null && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE.equals(cookie.getName())) {
+                    value = cookie.getValue();
+                }
+            }
+        }
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Adds the sequence before the response is committed, which happens once the controller
+     * starts writing the body; the write's transaction has committed by then.
+     */
+    private final class SequenceResponse extends HttpServletResponseWrapper {
+
+        private boolean written;
+
+        private SequenceResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        private void writeSequence() {
+            if (written || !ReadWriteRoutingDataSource.wrote()) {
+                return;
+            }
+            written = true;
+            String sequence = Long.toString(Math.max(ownSequence.getAsLong(), head.getAsLong()));
+            setHeader(HEADER, sequence);
+            Cookie cookie = new Cookie(COOKIE, sequence);
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge(stickinessSeconds);
+            addCookie(cookie);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeSequence();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeSequence();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeSequence();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeSequence();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeSequence();
+            super.sendError(sc, msg);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.compasso.projectms.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link ReadWriteRoutingDataSource#checkReplicas()} every {@code interval}, and closes the
+ * replica pools on shutdown.
+ */
+public class ReplicaLagMonitor implements InitializingBean, DisposableBean {
+
+    private final ReadWriteRoutingDataSource routingDataSource;
+
+    private final Duration interval;
+
+    private final ScheduledExecutorService checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaLagMonitor(ReadWriteRoutingDataSource routingDataSource, Duration interval) {
+        this.routingDataSource = routingDataSource;
+        this.interval = interval;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        checker.scheduleWithFixedDelay(this::check, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void check() {
+        try {
+            routingDataSource.checkReplicas();
+        } catch (RuntimeException e) {
+            // keeps the schedule alive; checkReplicas logs its own failures
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        checker.shutdownNow();
+        for (ReadWriteRoutingDataSource.Replica replica : routingDataSource.getReplicas()) {
+            if (replica.getDataSource() instanceof AutoCloseable) {
+                ((AutoCloseable) replica.getDataSource()).close();
+            }
+        }
+    }
+}
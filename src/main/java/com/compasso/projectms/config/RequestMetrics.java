@@ -0,0 +1,26 @@
+package com.compasso.projectms.config;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+final class RequestMetrics {
+
+    static final String NO_REQUEST = "none";
+
+    private RequestMetrics() {}
+
+    /**
+     * URI pattern of the handler serving the current request (e.g. {@code /products/{id}}),
+     * which keeps tag cardinality bounded.
+     */
+    static String currentUri() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return NO_REQUEST;
+        }
+        Object pattern = attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        return pattern == null ? NO_REQUEST : pattern.toString();
+    }
+}
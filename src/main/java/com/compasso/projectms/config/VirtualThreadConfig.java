@@ -0,0 +1,96 @@
+package com.compasso.projectms.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual-thread mode ({@code spring.profiles.active=virtual}, JDK 21+): Tomcat and MVC async
+ * requests run each request on its own virtual thread instead of the bounded platform pool.
+ *
+ * <p>With thousands of requests in flight, the data source is wrapped in a
+ * {@link ConcurrencyLimitedDataSource} with one permit per pooled connection, so waiting
+ * requests park on a semaphore (unmounting their carrier) before they enter the JDBC driver,
+ * whose {@code synchronized} sections would pin it. Remaining pinning is reported by
+ * {@link PinnedThreadMonitor}.
+ */
+@Configuration
+@ConditionalOnProperty(value = "product.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /**
+     * Hikari only applies its default pool size when the pool starts.
+     */
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads need JDK 21 or newer, running on "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Bean
+    public WebMvcConfigurer virtualThreadAsyncConfigurer(ExecutorService virtualThreadExecutor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+            }
+        };
+    }
+
+    @Bean
+    public static ConcurrencyLimitedDataSourcePostProcessor concurrencyLimitedDataSourcePostProcessor() {
+        return new ConcurrencyLimitedDataSourcePostProcessor();
+    }
+
+    @Bean
+    public PinnedThreadMonitor pinnedThreadMonitor(MeterRegistry meterRegistry) {
+        return new PinnedThreadMonitor(meterRegistry);
+    }
+
+    /**
+     * Ordered first, so it still sees the HikariDataSource before other wrappers are applied;
+     * declared as the bean's type so the context sees it is {@link Ordered}.
+     */
+    public static class ConcurrencyLimitedDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource) {
+                HikariDataSource hikari = (HikariDataSource) bean;
+                int poolSize = hikari.getMaximumPoolSize() > 0
+                        ? hikari.getMaximumPoolSize() : HIKARI_DEFAULT_POOL_SIZE;
+                return new ConcurrencyLimitedDataSource(hikari, poolSize,
+                        Duration.ofMillis(hikari.getConnectionTimeout()));
+            }
+            return bean;
+        }
+    }
+}
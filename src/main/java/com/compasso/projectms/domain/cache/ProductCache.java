@@ -0,0 +1,106 @@
+package com.compasso.projectms.domain.cache;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded read-through cache of products by id (Caffeine, W-TinyLFU eviction plus a TTL).
+ *
+ * <p>Entries are private copies and callers always get a fresh copy, so a cached value can
+ * never be changed in place. Concurrent misses of one id share a single load, see
+ * {@link SingleFlight}. Entries are invalidated after a write commits, which also detaches
+ * running loads of the id from later callers; a load that overlapped any invalidation is
+ * returned but not kept, so a row read before the commit cannot be left behind.
+ */
+@Component
+public class ProductCache {
+
+    private final Cache<String, ProductDto> cache;
+
+    private final SingleFlight<String, ProductDto> loads;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductCache(@Value("${product.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${product.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                        @Value("${product.coalescing.timeout:5s}") Duration coalescingTimeout) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.loads = new SingleFlight<>(coalescingTimeout, UnaryOperator.identity());
+    }
+
+    /**
+     * Returns the cached product, loading it on a miss. The loader may return {@code null}
+     * or throw, in which case nothing is cached.
+     */
+    public ProductDto get(String id, Function<String, ProductDto> loader) {
+        ProductDto dto = cache.getIfPresent(id);
+        if (dto == null) {
+            dto = loads.load(id, () -> {
+                long before = generation.get();
+                ProductDto loaded = loader.apply(id);
+                if (loaded == null) {
+                    return null;
+                }
+                ProductDto copy = new ProductDto(loaded);
+                if (generation.get() == before) {
+                    cache.put(id, copy);
+                    if (generation.get() != before) {
+                        // an invalidation started after the check and may have run before the put
+                        cache.invalidate(id);
+                    }
+                }
+                return copy;
+            });
+        }
+        return dto == null ? null : new ProductDto(dto);
+    }
+
+    /**
+     * Returns a copy of the cached product, or {@code null} on a miss without loading it.
+     */
+    public ProductDto getIfPresent(String id) {
+        ProductDto dto = cache.getIfPresent(id);
+        return dto == null ? null : new ProductDto(dto);
+    }
+
+    public void invalidate(String id) {
+        generation.incrementAndGet();
+        loads.forget(id);
+        cache.invalidate(id);
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE) // before the serialized responses are rebuilt from it
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate(event.getId());
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public SingleFlight<String, ProductDto> loads() {
+        return loads;
+    }
+}
@@ -0,0 +1,233 @@
+package com.compasso.projectms.domain.cache;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.compasso.projectms.domain.index.ProductTextIndex;
+import com.compasso.projectms.domain.repository.spec.ProductSpec;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of search results (Caffeine, W-TinyLFU eviction plus a TTL), in front of the
+ * search indexes. It holds the ids a search matched, in result order, keyed by the normalized
+ * query: the {@link ProductSpec#like(String)} pattern of the text and the price bounds. The
+ * products themselves come from {@link ProductCache} or the database as usual.
+ *
+ * <p>A write only drops the searches it can affect: those whose result contains the product,
+ * and those the product now matches, i.e. whose words all occur in its name or description
+ * and whose price range holds its price. Unrelated writes can still shift the relevance order
+ * of text results slightly, which a cached result does not follow until it expires.
+ *
+ * <p>Invalidation runs after the indexes have applied the write, and a search computed while
+ * a write was being applied is not kept, so a result read from an index the write had not
+ * reached yet cannot outlive the invalidation.
+ */
+@Component
+public class ProductSearchCache {
+
+    private final Cache<Key, Entry> cache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    private final SingleFlight<Key, List<ProductDto>> searches;
+
+    public ProductSearchCache(@Value("${product.search-cache.maximum-size:1000}") long maximumSize,
+                              @Value("${product.search-cache.expire-after-write:10m}") Duration expireAfterWrite,
+                              @Value("${product.coalescing.timeout:5s}") Duration coalescingTimeout) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.searches = new SingleFlight<>(coalescingTimeout, ProductSearchCache::copy);
+    }
+
+    /**
+     * Runs {@code search}, unless the same search is already running, in which case its
+     * products are shared, each caller getting its own copies. Searches that overlapped a
+     * write are not shared with callers that arrive after it committed.
+     */
+    public List<ProductDto> coalesce(String nameOrDescription, BigDecimal minPrice, BigDecimal maxPrice,
+                                     Supplier<List<ProductDto>> search) {
+        return searches.load(new Key(nameOrDescription, minPrice, maxPrice), search);
+    }
+
+    /**
+     * Returns the ids of the cached result, running {@code search} on a miss. The returned list
+     * is the caller's to modify.
+     */
+    public List<String> ids(String nameOrDescription, BigDecimal minPrice, BigDecimal maxPrice,
+                            Supplier<List<String>> search) {
+        Key key = new Key(nameOrDescription, minPrice, maxPrice);
+        Entry cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.ids();
+        }
+
+        long before = generation.get();
+        List<String> ids = search.get();
+        if (generation.get() == before) {
+            cache.put(key, new Entry(key, nameOrDescription, ids));
+            if (generation.get() != before) {
+                // a write started after the check and may have scanned before the put
+                cache.invalidate(key);
+            }
+        }
+        return ids;
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        generation.incrementAndGet();
+        searches.forgetAll();
+        Long id = ProductIdGenerator.parse(event.getId());
+        String text = event.isDeleted() ? null
+                : (event.getName() + " " + event.getDescription()).toLowerCase(Locale.ROOT);
+        cache.asMap().values().removeIf(entry -> {
+            boolean affected = entry.contains(id) || (text != null && entry.matches(text, event.getPrice()));
+            if (affected) {
+                invalidations.increment();
+            }
+            return affected;
+        });
+    }
+
+    /**
+     * Drops every result, e.g. after the indexes were rebuilt from another source.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        searches.forgetAll();
+        invalidations.add(cache.estimatedSize());
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long invalidationCount() {
+        return invalidations.sum();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public SingleFlight<?, List<ProductDto>> searches() {
+        return searches;
+    }
+
+    private static List<ProductDto> copy(List<ProductDto> products) {
+        List<ProductDto> copies = new ArrayList<>(products.size());
+        for (ProductDto product : products) {
+            copies.add(new ProductDto(product));
+        }
+        return copies;
+    }
+
+    private static final class Key {
+
+        private final String pattern;
+
+        private final String minPrice;
+
+        private final String maxPrice;
+
+        private Key(String nameOrDescription, BigDecimal minPrice, BigDecimal maxPrice) {
+            this.pattern = nameOrDescription == null ? null : ProductSpec.like(nameOrDescription);
+            this.minPrice = minPrice == null ? null : minPrice.stripTrailingZeros().toPlainString();
+            this.maxPrice = maxPrice == null ? null : maxPrice.stripTrailingZeros().toPlainString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(pattern, key.pattern) && Objects.equals(minPrice, key.minPrice)
+                    && Objects.equals(maxPrice, key.maxPrice);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pattern, minPrice, maxPrice);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long[] ids;
+
+        private final long[] sortedIds;
+
+        private final List<String> words;
+
+        private final BigDecimal minPrice;
+
+        private final BigDecimal maxPrice;
+
+        private Entry(Key key, String nameOrDescription, List<String> ids) {
+            this.ids = new long[ids.size()];
+            for (int i = 0; i < this.ids.length; i++) {
+                this.ids[i] = ProductIdGenerator.parse(ids.get(i));
+            }
+            this.sortedIds = this.ids.clone();
+            Arrays.sort(sortedIds);
+            this.words = ProductTextIndex.tokenize(nameOrDescription);
+            this.minPrice = key.minPrice == null ? null : new BigDecimal(key.minPrice);
+            this.maxPrice = key.maxPrice == null ? null : new BigDecimal(key.maxPrice);
+        }
+
+        private List<String> ids() {
+            List<String> list = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                list.add(ProductIdGenerator.format(id));
+            }
+            return list;
+        }
+
+        private boolean contains(Long id) {
+            return id != null && Arrays.binarySearch(sortedIds, id) >= 0;
+        }
+
+        private boolean matches(String text, BigDecimal price) {
+            for (String word : words) {
+                if (!text.contains(word)) {
+                    return false;
+                }
+            }
+            if (minPrice == null && maxPrice == null) {
+                return true;
+            }
+            return price != null
+                    && (minPrice == null || price.compareTo(minPrice) >= 0)
+                    && (maxPrice == null || price.compareTo(maxPrice) <= 0);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.compasso.projectms.domain.cache;
+
+import com.compasso.projectms.domain.service.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the load on its own thread
+ * and callers arriving while it runs wait for its outcome, value or exception, instead of
+ * loading again. Waiters give up after {@code timeout} with {@link ServiceUnavailableException}.
+ *
+ * <p>A load that started before a write may return the old state; owners {@link #forget} the
+ * keys a write affects once it commits, so callers arriving after that start a new load.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+
+    private final long timeoutNanos;
+
+    private final UnaryOperator<V> share;
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private volatile DistributionSummary requestsPerLoad;
+
+    /**
+     * @param share applied to the value handed to each waiter, e.g. to give it a private copy
+     */
+    public SingleFlight(Duration timeout, UnaryOperator<V> share) {
+        this.timeoutNanos = timeout.toNanos();
+        this.share = share;
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        Flight<V> flight = new Flight<>();
+        Flight<V> running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            running.callers.incrementAndGet();
+            coalesced.increment();
+            return share.apply(running.await(timeoutNanos, key));
+        }
+
+        loads.increment();
+        try {
+            V value = loader.get();
+            flight.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+            DistributionSummary summary = requestsPerLoad;
+            if (summary != null) {
+                summary.record(flight.callers.get());
+            }
+        }
+    }
+
+    public void forget(K key) {
+        flights.remove(key);
+    }
+
+    public void forgetAll() {
+        flights.clear();
+    }
+
+    public long loadCount() {
+        return loads.sum();
+    }
+
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Records the number of requests each load served, the caller that ran it included, as
+     * {@code product.coalesced.requests} tagged with {@code operation}.
+     */
+    public void bindTo(MeterRegistry registry, String operation) {
+        requestsPerLoad = DistributionSummary.builder("product.coalesced.requests")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private static final class Flight<V> {
+
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        private final AtomicInteger callers = new AtomicInteger(1);
+
+        private V await(long timeoutNanos, Object key) {
+            try {
+                return result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw (Error) cause;
+            } catch (TimeoutException e) {
+                throw new ServiceUnavailableException("Timed out waiting for the load of " + key);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceUnavailableException("Interrupted waiting for the load of " + key);
+            }
+        }
+    }
+}
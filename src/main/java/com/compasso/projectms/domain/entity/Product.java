@@ -5,19 +5,24 @@ import java.math.BigDecimal;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Version;
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.GenericGenerator;
+
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+
 @Entity
 public class Product implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private String id;
+    @GeneratedValue(generator = "product-id")
+    @GenericGenerator(name = "product-id", strategy = "com.compasso.projectms.domain.id.ProductIdGenerator")
+    private Long id;
 
     @NotBlank(message = "Name is mandatory")
     private String name;
@@ -29,20 +34,29 @@ public class Product implements Serializable {
     @DecimalMin(value = "0.0", inclusive = false)
     private BigDecimal price;
 
+    @Version
+    private Long version;
+
 	public Product() {}
 
+	/**
+	 * Takes the id in its external decimal form; see {@link ProductIdGenerator#parse(String)}.
+	 */
 	public Product(String id, String name, String description, BigDecimal price) {
-		this.id = id;
+		this.id = ProductIdGenerator.parse(id);
+		if (id != null && this.id == null) {
+			throw new IllegalArgumentException("Invalid product id " + id);
+		}
 		this.name = name;
 		this.description = description;
 		this.price = price;
 	}
 
-	public String getId() {
+	public Long getId() {
 		return id;
 	}
 
-	public void setId(String id) {
+	public void setId(Long id) {
 		this.id = id;
 	}
 
@@ -70,6 +84,14 @@ public class Product implements Serializable {
 		this.price = price;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
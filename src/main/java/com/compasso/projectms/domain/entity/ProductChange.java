@@ -0,0 +1,94 @@
+package com.compasso.projectms.domain.entity;
+
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One row of the product change feed (transactional outbox), written in the same transaction
+ * as the product write it describes. Sequences are taken one at a time, in write order; see
+ * {@link com.compasso.projectms.domain.service.ProductChangeFeed}.
+ */
+@Entity
+@Table(name = "product_change", indexes = @Index(name = "product_change_changed_at", columnList = "changedAt"))
+public class ProductChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product-change-sequence")
+    @SequenceGenerator(name = "product-change-sequence", sequenceName = "product_change_sequence", allocationSize = 1)
+    private Long sequence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ProductChangedEvent.Type type;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    private String name;
+
+    private String description;
+
+    private BigDecimal price;
+
+    private Long version;
+
+    @Column(nullable = false)
+    private Instant changedAt;
+
+    public ProductChange() {}
+
+    public ProductChange(ProductChangedEvent event) {
+        this.type = event.getType();
+        this.productId = ProductIdGenerator.parse(event.getId());
+        this.name = event.getName();
+        this.description = event.getDescription();
+        this.price = event.getPrice();
+        this.version = event.getVersion();
+        this.changedAt = Instant.now();
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public ProductChangedEvent.Type getType() {
+        return type;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
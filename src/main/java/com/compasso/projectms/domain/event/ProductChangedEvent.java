@@ -0,0 +1,80 @@
+package com.compasso.projectms.domain.event;
+
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.compasso.projectms.domain.entity.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Published by the service layer for every product write. Listeners that keep derived
+ * state (indexes, caches) should react after commit, so that state never runs ahead of
+ * the database.
+ */
+public class ProductChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+
+    private final String id;
+
+    private final String name;
+
+    private final String description;
+
+    private final BigDecimal price;
+
+    private final Long version;
+
+    private ProductChangedEvent(Type type, String id, String name, String description, BigDecimal price,
+                                Long version) {
+        this.type = type;
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.version = version;
+    }
+
+    public static ProductChangedEvent created(Product product) {
+        return new ProductChangedEvent(Type.CREATED, ProductIdGenerator.format(product.getId()), product.getName(),
+                product.getDescription(), product.getPrice(), product.getVersion());
+    }
+
+    public static ProductChangedEvent updated(Product product) {
+        return new ProductChangedEvent(Type.UPDATED, ProductIdGenerator.format(product.getId()), product.getName(),
+                product.getDescription(), product.getPrice(), product.getVersion());
+    }
+
+    public static ProductChangedEvent deleted(String id) {
+        return new ProductChangedEvent(Type.DELETED, id, null, null, null, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public boolean isDeleted() {
+        return type == Type.DELETED;
+    }
+}
@@ -0,0 +1,93 @@
+package com.compasso.projectms.domain.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates product ids on the application side, so inserts need no round-trip to learn
+ * their key and Hibernate can batch them.
+ *
+ * <p>Ids are Snowflake-style 63-bit values stored as BIGINT: milliseconds since {@link #EPOCH}
+ * in the high 41 bits, then the {@link #NODE_BITS}-bit node id and a per-millisecond sequence.
+ * They sort by creation time, and nodes configured with distinct {@code product.id.node}
+ * values never collide. Outside the database they travel as decimal strings, the same
+ * all-digits form as the legacy identity ids, which all sort before generated ones.
+ */
+public class ProductIdGenerator implements IdentifierGenerator {
+
+    public static final long EPOCH = 1609459200000L; // 2021-01-01T00:00:00Z
+
+    static final int NODE_BITS = 10;
+
+    static final int SEQUENCE_BITS = 12;
+
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    /**
+     * Last timestamp and sequence handed out, packed as {@code timestamp << SEQUENCE_BITS | sequence}.
+     */
+    private static final AtomicLong last = new AtomicLong();
+
+    private static volatile long node;
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return nextId();
+    }
+
+    public static void setNode(int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("product.id.node must be between 0 and " + MAX_NODE + ", was " + node);
+        }
+        ProductIdGenerator.node = node;
+    }
+
+    public static long nextId() {
+        while (true) {
+            long previous = last.get();
+            long lastTimestamp = previous >>> SEQUENCE_BITS;
+            long timestamp = System.currentTimeMillis() - EPOCH;
+            long sequence = 0;
+            if (timestamp <= lastTimestamp) {
+                // same millisecond, or the clock stepped back: keep counting on the last timestamp
+                timestamp = lastTimestamp;
+                sequence = (previous & SEQUENCE_MASK) + 1;
+                if (sequence > SEQUENCE_MASK) {
+                    timestamp++;
+                    sequence = 0;
+                }
+            }
+            if (last.compareAndSet(previous, (timestamp << SEQUENCE_BITS) | sequence)) {
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * The stored form of an external id, or {@code null} when the string cannot be a product id.
+     */
+    public static Long parse(String id) {
+        if (id == null || id.isEmpty() || id.length() > 19) {
+            return null;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) < '0' || id.charAt(i) > '9') {
+                return null;
+            }
+        }
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static String format(Long id) {
+        return id == null ? null : Long.toString(id);
+    }
+}
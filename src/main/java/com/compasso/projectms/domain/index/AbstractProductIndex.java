@@ -0,0 +1,145 @@
+package com.compasso.projectms.domain.index;
+
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import com.compasso.projectms.domain.repository.ProductStreamRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Base for in-memory product indexes: builds the index from a table scan once the
+ * application is ready and then follows committed writes through {@link ProductChangedEvent}.
+ * Replicas serving a product snapshot scan the snapshot instead, see {@link #useSource(Consumer)}.
+ *
+ * <p>Writes committed while the startup scan is running win over the row the scan read, so
+ * the scan never puts back an older version of a product. Subclasses mutate their state only
+ * inside the {@code *Unlocked} hooks, which run under the write lock.
+ */
+public abstract class AbstractProductIndex {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ProductStreamRepository productStreamRepository;
+
+    private volatile Consumer<Consumer<Product>> source;
+
+    private final Set<String> touchedDuringRebuild = new HashSet<>();
+
+    private boolean rebuilding;
+
+    private volatile boolean ready;
+
+    protected AbstractProductIndex(ProductStreamRepository productStreamRepository) {
+        this.productStreamRepository = productStreamRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Replaces the table scan used by {@link #rebuild()}.
+     */
+    public void useSource(Consumer<Consumer<Product>> source) {
+        this.source = source;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        Consumer<Consumer<Product>> scan = source != null ? source : productStreamRepository::forEach;
+        ready = false;
+        lock.writeLock().lock();
+        try {
+            clearUnlocked();
+            rebuilding = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            scan.accept(product -> {
+                lock.writeLock().lock();
+                try {
+                    if (!touchedDuringRebuild.contains(ProductIdGenerator.format(product.getId()))) {
+                        putUnlocked(product);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+        } finally {
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                touchedDuringRebuild.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        ready = true;
+        log.info("{} built with {} products in {} ms", getClass().getSimpleName(), size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE) // before the search cache drops the results the write affects
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                touchedDuringRebuild.add(event.getId());
+            }
+            removeUnlocked(event.getId());
+            if (!event.isDeleted()) {
+                putUnlocked(new Product(event.getId(), event.getName(), event.getDescription(), event.getPrice()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(ProductIdGenerator.format(product.getId()));
+            putUnlocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public abstract int size();
+
+    protected abstract void clearUnlocked();
+
+    /**
+     * Adds a product that is known not to be in the index.
+     */
+    protected abstract void putUnlocked(Product product);
+
+    protected abstract void removeUnlocked(String id);
+}
@@ -0,0 +1,286 @@
+package com.compasso.projectms.domain.index;
+
+import com.compasso.projectms.api.dto.ProductChangeDto;
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.compasso.projectms.domain.repository.ProductStreamRepository;
+import com.compasso.projectms.domain.service.ProductChangeFeed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter over the ids of existing products, so lookups of ids that were never created,
+ * or were deleted before the last scan, can be answered without a query. A {@code true} from
+ * {@link #mightContain(long)} only means the database has to be asked.
+ *
+ * <p>It is built from a table scan once the application is ready, repeated every
+ * {@code product.id-filter.rebuild-interval}, and in between adds the ids of committed creates:
+ * this instance's own before the write returns to its caller, every other one as the
+ * {@link ProductChangeFeed} delivers it. Deletes are never taken out, since the filter cannot
+ * tell which bits the deleted id shares with existing ones; deleted ids cost a query until the
+ * next scan. While the filter has not yet applied the feed up to {@link ProductChangeFeed#head()}
+ * it answers {@code true} for every id, so a create committed elsewhere is not reported absent.
+ *
+ * <p>Rows written around the service, by SQL or another tool, leave no change in the feed and
+ * are false negatives until the next scan: reads of them answer 404, so writes never rely on the
+ * filter, only reads do. Until the first scan completes, or with
+ * {@code product.id-filter.enabled=false}, every id might exist.
+ */
+@Component
+public class ProductIdFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductIdFilter.class);
+
+    private final ProductStreamRepository productStreamRepository;
+
+    private final ObjectProvider<ProductChangeFeed> productChangeFeed;
+
+    private final boolean enabled;
+
+    private final long expectedSize;
+
+    private final double falsePositiveRate;
+
+    private final Duration rebuildInterval;
+
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-id-filter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder absent = new LongAdder();
+
+    private final LongAdder present = new LongAdder();
+
+    private volatile Bits bits;
+
+    /**
+     * The filter being filled by a running scan; guarded by {@code this}.
+     */
+    private Bits building;
+
+    private volatile ProductChangeFeed feed;
+
+    /**
+     * Sequence of the last change feed change applied to the filter.
+     */
+    private volatile long appliedSequence;
+
+    @Autowired
+    public ProductIdFilter(ProductStreamRepository productStreamRepository,
+                           ObjectProvider<ProductChangeFeed> productChangeFeed,
+                           @Value("${product.id-filter.enabled:true}") boolean enabled,
+                           @Value("${product.id-filter.expected-size:100000}") long expectedSize,
+                           @Value("${product.id-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                           @Value("${product.id-filter.rebuild-interval:1h}") Duration rebuildInterval) {
+        this.productStreamRepository = productStreamRepository;
+        this.productChangeFeed = productChangeFeed;
+        this.enabled = enabled;
+        this.expectedSize = expectedSize;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildInterval = rebuildInterval;
+    }
+
+    public boolean isReady() {
+        return bits != null;
+    }
+
+    /**
+     * Whether the filter applied every change this instance knows was committed.
+     */
+    public boolean isCaughtUp() {
+        ProductChangeFeed current = feed;
+        return current == null || appliedSequence >= current.head();
+    }
+
+    /**
+     * Whether product {@code id} may exist; {@code false} means it certainly does not.
+     */
+    public boolean mightContain(long id) {
+        Bits current = bits;
+        if (current == null || !isCaughtUp()) {
+            return true;
+        }
+        if (current.contains(id)) {
+            present.increment();
+            return true;
+        }
+        absent.increment();
+        return false;
+    }
+
+    /**
+     * Builds the filter, follows the change feed from where the scan started and schedules the
+     * periodic rebuilds.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        ProductChangeFeed changes = productChangeFeed.getIfAvailable();
+        if (changes != null) {
+            appliedSequence = changes.head();
+            feed = changes;
+        }
+        rebuild();
+        if (changes != null) {
+            changes.subscribe(appliedSequence, ProductChangeFeed.MAX_BATCH_SIZE, this::onChanges);
+        }
+        rebuilder.scheduleWithFixedDelay(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.warn("Could not rebuild the ProductIdFilter", e);
+            }
+        }, rebuildInterval.toMillis(), rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Scans the product table into a new filter, sized for twice the current row count or
+     * {@code product.id-filter.expected-size}, whichever is larger, and swaps it in.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        Bits next = new Bits(Math.max(expectedSize, 2 * productStreamRepository.count()), falsePositiveRate);
+        synchronized (this) {
+            building = next;
+        }
+        try {
+            productStreamRepository.forEach(product -> next.add(product.getId()));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                building = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            bits = next;
+            building = null;
+        }
+        log.info("ProductIdFilter built with {} bits and {} hashes in {} ms", next.size, next.hashes,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.CREATED) {
+            add(ProductIdGenerator.parse(event.getId()));
+        }
+    }
+
+    /**
+     * Adds the ids created by committed changes, such as those written by other instances, and
+     * moves the filter's position in the feed past them.
+     */
+    public void onChanges(List<ProductChangeDto> changes) {
+        for (ProductChangeDto change : changes) {
+            if (change.getType() == ProductChangedEvent.Type.CREATED) {
+                add(ProductIdGenerator.parse(change.getId()));
+            }
+        }
+        if (!changes.isEmpty()) {
+            appliedSequence = Math.max(appliedSequence, changes.get(changes.size() - 1).getSequence());
+        }
+    }
+
+    private synchronized void add(Long id) {
+        if (id == null) {
+            return;
+        }
+        Bits current = bits;
+        if (current != null) {
+            current.add(id);
+        }
+        if (building != null) {
+            building.add(id);
+        }
+    }
+
+    public long absentCount() {
+        return absent.sum();
+    }
+
+    public long presentCount() {
+        return present.sum();
+    }
+
+    /**
+     * Bits packed 64 to a long, addressed by double hashing of the id.
+     */
+    private static final class Bits {
+
+        private final AtomicLongArray words;
+
+        private final long size;
+
+        private final int hashes;
+
+        private Bits(long expected, double falsePositiveRate) {
+            long n = Math.max(expected, 1);
+            this.size = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+            this.hashes = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+            this.words = new AtomicLongArray(Math.toIntExact((size + 63) / 64));
+        }
+
+        private boolean contains(long id) {
+            long h1 = mix(id);
+            long h2 = mix(h1) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long position = Math.floorMod(h1 + i * h2, size);
+                if ((words.get((int) (position >>> 6)) & (1L << position)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void add(long id) {
+            long h1 = mix(id);
+            long h2 = mix(h1) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long position = Math.floorMod(h1 + i * h2, size);
+                int index = (int) (position >>> 6);
+                long bit = 1L << position;
+                long word;
+                do {
+                    word = words.get(index);
+                } while ((word & bit) == 0 && !words.compareAndSet(index, word, word | bit));
+            }
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+            z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return z ^ (z >>> 33);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.compasso.projectms.domain.index;
+
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.repository.ProductStreamRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Sorted index of product prices, stored as longs scaled to the two decimal places of the
+ * price column. Range lookups cost O(log n + k) and return ids in ascending price order.
+ * Reads are lock-free; writes are serialized by the index lock.
+ */
+@Component
+public class ProductPriceIndex extends AbstractProductIndex {
+
+    public static final int SCALE = 2;
+
+    private static final Comparator<Entry> ORDER = Comparator.<Entry>comparingLong(entry -> entry.price)
+            .thenComparing(entry -> entry.id, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>(ORDER);
+
+    private final Map<String, Long> priceById = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ProductPriceIndex(ProductStreamRepository productStreamRepository) {
+        super(productStreamRepository);
+    }
+
+    /**
+     * Returns the ids of the products priced within the inclusive bounds, cheapest first.
+     * A {@code null} bound leaves that side of the range open.
+     */
+    public List<String> range(BigDecimal minPrice, BigDecimal maxPrice) {
+        long low = lowerBound(minPrice);
+        long high = upperBound(maxPrice);
+        List<String> ids = new ArrayList<>();
+        if (low > high) {
+            return ids;
+        }
+        for (Entry entry : entries.subSet(new Entry(low, ""), true, new Entry(high, null), true)) {
+            ids.add(entry.id);
+        }
+        return ids;
+    }
+
+    public boolean contains(String id, BigDecimal minPrice, BigDecimal maxPrice) {
+        Long price = priceById.get(id);
+        return price != null && price >= lowerBound(minPrice) && price <= upperBound(maxPrice);
+    }
+
+    @Override
+    public int size() {
+        return priceById.size();
+    }
+
+    @Override
+    protected void clearUnlocked() {
+        entries.clear();
+        priceById.clear();
+    }
+
+    @Override
+    protected void putUnlocked(Product product) {
+        if (product.getPrice() == null) {
+            return;
+        }
+        long price = scale(product.getPrice(), RoundingMode.HALF_UP);
+        String id = ProductIdGenerator.format(product.getId());
+        entries.add(new Entry(price, id));
+        priceById.put(id, price);
+    }
+
+    @Override
+    protected void removeUnlocked(String id) {
+        Long price = priceById.remove(id);
+        if (price != null) {
+            entries.remove(new Entry(price, id));
+        }
+    }
+
+    private static long lowerBound(BigDecimal minPrice) {
+        return minPrice == null ? Long.MIN_VALUE : scale(minPrice, RoundingMode.CEILING);
+    }
+
+    private static long upperBound(BigDecimal maxPrice) {
+        return maxPrice == null ? Long.MAX_VALUE : scale(maxPrice, RoundingMode.FLOOR);
+    }
+
+    static long scale(BigDecimal value, RoundingMode roundingMode) {
+        BigInteger unscaled = value.setScale(SCALE, roundingMode).unscaledValue();
+        if (unscaled.bitLength() > 63) {
+            return unscaled.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        return unscaled.longValue();
+    }
+
+    private static final class Entry {
+
+        private final long price;
+
+        private final String id;
+
+        private Entry(long price, String id) {
+            this.price = price;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.compasso.projectms.domain.index;
+
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.repository.ProductStreamRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over product name and description.
+ *
+ * <p>Terms are lower-cased alphanumeric runs kept in a sorted map, so every query word is
+ * matched as a prefix of an indexed term. All query words must match (in the name or the
+ * description) for a product to be returned; results are ranked by a tf-idf score in which
+ * name hits weigh more than description hits.
+ */
+@Component
+public class ProductTextIndex extends AbstractProductIndex {
+
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int NAME_WEIGHT = 3;
+
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final NavigableMap<String, Map<String, Integer>> postings = new TreeMap<>();
+
+    private final Map<String, Set<String>> termsById = new HashMap<>();
+
+    @Autowired
+    public ProductTextIndex(ProductStreamRepository productStreamRepository) {
+        super(productStreamRepository);
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the ids of the products matching every word of the query, best match first.
+     */
+    public List<String> search(String query) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = Math.max(1, termsById.size());
+            Map<String, Double> scores = null;
+
+            for (String word : words) {
+                Map<String, Double> wordScores = new HashMap<>();
+                for (Map<String, Integer> posting : prefixRange(word).values()) {
+                    double idf = Math.log(1.0 + (double) documentCount / posting.size());
+                    posting.forEach((id, weight) -> wordScores.merge(id, weight * idf, Double::sum));
+                }
+
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    scores.keySet().retainAll(wordScores.keySet());
+                    scores.replaceAll((id, score) -> score + wordScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+
+            List<Map.Entry<String, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey()));
+
+            List<String> ids = new ArrayList<>(ranked.size());
+            ranked.forEach(entry -> ids.add(entry.getKey()));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return termsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected void clearUnlocked() {
+        postings.clear();
+        termsById.clear();
+    }
+
+    @Override
+    protected void putUnlocked(Product product) {
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(product.getName()).forEach(term -> weights.merge(term, NAME_WEIGHT, Integer::sum));
+        tokenize(product.getDescription()).forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+
+        String id = ProductIdGenerator.format(product.getId());
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, weight));
+        termsById.put(id, new HashSet<>(weights.keySet()));
+    }
+
+    @Override
+    protected void removeUnlocked(String id) {
+        Set<String> terms = termsById.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<String, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private NavigableMap<String, Map<String, Integer>> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+}
@@ -0,0 +1,33 @@
+package com.compasso.projectms.domain.repository;
+
+import com.compasso.projectms.domain.entity.ProductChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    List<ProductChange> findBySequenceGreaterThanOrderBySequence(long after, Pageable pageable);
+
+    @Query("select min(c.sequence) from ProductChange c")
+    Long findMinSequence();
+
+    @Query("select max(c.sequence) from ProductChange c")
+    Long findMaxSequence();
+
+    @Query("select max(c.sequence) from ProductChange c where c.changedAt < :before")
+    Long findMaxSequenceBefore(@Param("before") Instant before);
+
+    @Modifying
+    @Transactional
+    @Query("delete from ProductChange c where c.sequence <= :sequence")
+    int deleteThrough(@Param("sequence") long sequence);
+}
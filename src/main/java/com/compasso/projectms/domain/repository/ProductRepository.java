@@ -1,11 +1,44 @@
 package com.compasso.projectms.domain.repository;
 
+import com.compasso.projectms.api.dto.ProductDto;
 import com.compasso.projectms.domain.entity.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The DTO queries for pages and lookups run in read-only transactions, which Spring Data does
+ * not give declared query methods by default, so they can be served by a read replica.
+ * {@link #findDtoById} fills the product caches, which writes invalidate once they commit, and
+ * runs without a transaction so it reads the primary: a lagging replica would put the row from
+ * before the write back in the cache.
+ */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, String>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+    String SELECT_DTO = "select new com.compasso.projectms.api.dto.ProductDto(p.id, p.name, p.description, p.price, p.version) "
+            + "from Product p ";
+
+    @Query(SELECT_DTO + "where p.id = :id")
+    Optional<ProductDto> findDtoById(@Param("id") Long id);
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_DTO + "where p.id in :ids")
+    List<ProductDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_DTO + "order by p.id")
+    List<ProductDto> findDtoPage(Pageable pageable);
 
+    @Transactional(readOnly = true)
+    @Query(SELECT_DTO + "where p.id > :after order by p.id")
+    List<ProductDto> findDtoPageAfter(@Param("after") Long after, Pageable pageable);
 }
@@ -0,0 +1,94 @@
+package com.compasso.projectms.domain.repository;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.repository.spec.ProductSpec;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Runs /products/search as one of a fixed set of JPQL queries, one per combination of text,
+ * minimum price and maximum price filters, instead of a {@link ProductSpec} tree rebuilt on
+ * every call. Each query string is constant, so Hibernate translates it to SQL once and keeps
+ * the plan in its query plan cache, the SQL is the same prepared statement for every request
+ * of the same shape, and a request only binds its parameters.
+ *
+ * <p>Text matches the way the text index does, see
+ * {@link ProductSpec#matchesNameOrDescription(ProductDto, String)}: the query only narrows the
+ * rows down to those containing the longest word, and the rows are checked in memory. Prices
+ * match {@link ProductSpec#productMinMax(BigDecimal, BigDecimal)}.
+ */
+@Repository
+public class ProductSearchRepository {
+
+    private static final int TEXT = 1;
+
+    private static final int MIN_PRICE = 2;
+
+    private static final int MAX_PRICE = 4;
+
+    private static final String[] SHAPES = new String[8];
+
+    private static final String[] SHAPE_NAMES = new String[8];
+
+    static {
+        for (int shape = 0; shape < SHAPES.length; shape++) {
+            StringBuilder jpql = new StringBuilder(ProductRepository.SELECT_DTO);
+            StringBuilder name = new StringBuilder();
+            String separator = "where ";
+            if ((shape & TEXT) != 0) {
+                jpql.append(separator).append("(lower(p.name) like :pattern or lower(p.description) like :pattern) ");
+                separator = "and ";
+                name.append("text");
+            }
+            if ((shape & MIN_PRICE) != 0) {
+                jpql.append(separator).append("p.price >= :minPrice ");
+                separator = "and ";
+                name.append(name.length() == 0 ? "" : ",").append("minPrice");
+            }
+            if ((shape & MAX_PRICE) != 0) {
+                jpql.append(separator).append("p.price <= :maxPrice ");
+                name.append(name.length() == 0 ? "" : ",").append("maxPrice");
+            }
+            SHAPES[shape] = jpql.toString().trim();
+            SHAPE_NAMES[shape] = name.length() == 0 ? "all" : name.toString();
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public List<ProductDto> search(String nameOrDescription, BigDecimal minPrice, BigDecimal maxPrice) {
+        String pattern = ProductSpec.likeLongestWord(nameOrDescription);
+        int shape = (pattern != null ? TEXT : 0)
+                | (minPrice != null ? MIN_PRICE : 0)
+                | (maxPrice != null ? MAX_PRICE : 0);
+        QueryOrigin.append(SHAPE_NAMES[shape]);
+        TypedQuery<ProductDto> query = entityManager.createQuery(SHAPES[shape], ProductDto.class);
+        if (pattern != null) {
+            query.setParameter("pattern", pattern);
+        }
+        if (minPrice != null) {
+            query.setParameter("minPrice", minPrice);
+        }
+        if (maxPrice != null) {
+            query.setParameter("maxPrice", maxPrice);
+        }
+        List<ProductDto> products = query.getResultList();
+        if (pattern != null) {
+            products.removeIf(product -> !ProductSpec.matchesNameOrDescription(product, nameOrDescription));
+        }
+        return products;
+    }
+
+    /**
+     * The JPQL of every shape, for benchmarks and tests.
+     */
+    public static String jpql(boolean text, boolean minPrice, boolean maxPrice) {
+        return SHAPES[(text ? TEXT : 0) | (minPrice ? MIN_PRICE : 0) | (maxPrice ? MAX_PRICE : 0)];
+    }
+}
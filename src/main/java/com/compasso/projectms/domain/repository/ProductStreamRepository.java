@@ -0,0 +1,52 @@
+package com.compasso.projectms.domain.repository;
+
+import com.compasso.projectms.domain.entity.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+
+/**
+ * Reads the product table through a forward-only JDBC cursor, handing each row to the
+ * caller as soon as it is fetched so that no more than one fetch batch is held in memory.
+ * Rows come in id order.
+ */
+@Repository
+public class ProductStreamRepository {
+
+    private static final String SELECT_ALL = "SELECT id, name, description, price, version FROM product ORDER BY id";
+
+    private static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProductStreamRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    public void forEach(Consumer<Product> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_ALL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            Product product = new Product(
+                    resultSet.getString("id"),
+                    resultSet.getString("name"),
+                    resultSet.getString("description"),
+                    resultSet.getBigDecimal("price"));
+            product.setVersion(resultSet.getLong("version"));
+            consumer.accept(product);
+        });
+    }
+}
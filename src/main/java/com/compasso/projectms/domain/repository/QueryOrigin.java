@@ -0,0 +1,62 @@
+package com.compasso.projectms.domain.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Names the code that issues the SQL running on the current thread, for the query statistics:
+ * the repository method being called and, for specification queries, the specifications that
+ * built the where clause, e.g. {@code ProductRepository.findAll[productMinMax]}.
+ */
+public final class QueryOrigin {
+
+    public static final String UNKNOWN = "unknown";
+
+    private static final ThreadLocal<String> current = new ThreadLocal<>();
+
+    private QueryOrigin() {}
+
+    public static String current() {
+        String origin = current.get();
+        return origin == null ? UNKNOWN : origin;
+    }
+
+    /**
+     * Sets the origin and returns the previous one, to be passed to {@link #restore(String)}.
+     */
+    public static String enter(String origin) {
+        String previous = current.get();
+        current.set(origin);
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+    }
+
+    /**
+     * Wraps {@code spec} so that building its predicate adds {@code name} to the current origin.
+     */
+    public static <T> Specification<T> named(String name, Specification<T> spec) {
+        return (root, query, criteriaBuilder) -> {
+            append(name);
+            return spec.toPredicate(root, query, criteriaBuilder);
+        };
+    }
+
+    /**
+     * Adds {@code name} to the current origin, if one is set, e.g. to tell apart the query shapes
+     * a repository method chooses between.
+     */
+    public static void append(String name) {
+        String origin = current.get();
+        if (origin != null && !origin.contains(name)) {
+            current.set(origin.endsWith("]")
+                    ? origin.substring(0, origin.length() - 1) + "," + name + "]"
+                    : origin + "[" + name + "]");
+        }
+    }
+}
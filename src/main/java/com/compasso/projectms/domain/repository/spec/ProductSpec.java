@@ -1,18 +1,23 @@
 package com.compasso.projectms.domain.repository.spec;
 
+import com.compasso.projectms.api.dto.ProductDto;
 import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.index.ProductTextIndex;
+import com.compasso.projectms.domain.repository.QueryOrigin;
 import org.springframework.data.jpa.domain.Specification;
 
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 
 public class ProductSpec {
 
     public static Specification<Product> productMinMax(BigDecimal minPrice, BigDecimal maxPrice) {
 
-        return (root, query, criteriaBuilder) -> {
+        return QueryOrigin.named("productMinMax", (root, query, criteriaBuilder) -> {
 
             if (minPrice == null && maxPrice == null) {
                 return criteriaBuilder.isTrue(criteriaBuilder.literal(true));
@@ -32,11 +37,11 @@ public class ProductSpec {
             }
 
             return criteriaBuilder.between(path, minPrice, maxPrice);
-        };
+        });
     }
 
     public static Specification<Product> productWithNameOrDescription(String nameOrDescription) {
-        return (root, query, criteriaBuilder) -> {
+        return QueryOrigin.named("productWithNameOrDescription", (root, query, criteriaBuilder) -> {
 
             if (nameOrDescription == null) {
                 return criteriaBuilder.isTrue(criteriaBuilder.literal(true));
@@ -50,10 +55,58 @@ public class ProductSpec {
                     nameOrDescriptionLikeValue);
 
             return criteriaBuilder.or(namePredicate, descriptionPredicate);
-        };
+        });
     }
 
-    private static String like(String value) {
+    /**
+     * Whether every word of {@code nameOrDescription} starts a word of the product's name or
+     * description, the way {@link ProductTextIndex#search(String)} matches them, so a search
+     * finds the same products before the index is built. A text without words matches all.
+     */
+    public static boolean matchesNameOrDescription(ProductDto product, String nameOrDescription) {
+        List<String> words = ProductTextIndex.tokenize(nameOrDescription);
+        if (words.isEmpty()) {
+            return true;
+        }
+        List<String> terms = ProductTextIndex.tokenize(product.getName());
+        terms.addAll(ProductTextIndex.tokenize(product.getDescription()));
+        for (String word : words) {
+            if (terms.stream().noneMatch(term -> term.startsWith(word))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A {@code like} pattern every product matching {@link #matchesNameOrDescription} matches
+     * in its name or description: the longest word of {@code nameOrDescription} anywhere, or
+     * {@code null} when it has no words.
+     */
+    public static String likeLongestWord(String nameOrDescription) {
+        return ProductTextIndex.tokenize(nameOrDescription).stream()
+                .max(Comparator.comparingInt(String::length))
+                .map(word -> "%" + word + "%")
+                .orElse(null);
+    }
+
+    /**
+     * In-memory equivalent of {@link #productMinMax(BigDecimal, BigDecimal)}.
+     */
+    public static boolean matchesMinMax(ProductDto product, BigDecimal minPrice, BigDecimal maxPrice) {
+        BigDecimal price = product.getPrice();
+        if (minPrice == null && maxPrice == null) {
+            return true;
+        }
+        return price != null
+                && (minPrice == null || price.compareTo(minPrice) >= 0)
+                && (maxPrice == null || price.compareTo(maxPrice) <= 0);
+    }
+
+    /**
+     * The {@code like} pattern matching the words of {@code value} in order, ignoring case.
+     */
+    public static String like(String value) {
 
         StringBuilder sb = new StringBuilder();
         sb.append("%");
@@ -0,0 +1,33 @@
+package com.compasso.projectms.domain.service;
+
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.compasso.projectms.domain.service.exceptions.FormatErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public final class PageCursor {
+
+    private PageCursor() {}
+
+    public static String encode(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Long decodeId(String cursor) {
+        Long id = ProductIdGenerator.parse(decode(cursor));
+        if (id == null) {
+            throw new FormatErrorException("Invalid cursor");
+        }
+        return id;
+    }
+
+    public static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new FormatErrorException("Invalid cursor");
+        }
+    }
+}
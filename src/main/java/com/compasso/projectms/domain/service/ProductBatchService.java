@@ -0,0 +1,185 @@
+package com.compasso.projectms.domain.service;
+
+import com.compasso.projectms.api.dto.BatchItemResultDto;
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.compasso.projectms.domain.repository.ProductRepository;
+import com.compasso.projectms.domain.service.exceptions.FormatErrorException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes many products per call. Items are validated one by one, then persisted in chunks,
+ * each chunk in its own transaction and flushed as JDBC batches. When a chunk fails it is
+ * replayed item by item, so one bad row only fails itself.
+ */
+@Service
+public class ProductBatchService {
+
+    public static final int MAX_BATCH_SIZE = 10_000;
+
+    private final ProductRepository productRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Validator validator;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int chunkSize;
+
+    @Autowired
+    public ProductBatchService(ProductRepository productRepository, TransactionTemplate transactionTemplate,
+                               Validator validator, ApplicationEventPublisher eventPublisher,
+                               @Value("${product.batch.chunk-size:500}") int chunkSize) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    public List<BatchItemResultDto> insertAll(List<ProductDto> dtos) {
+        return write(dtos, false, this::insertChunk);
+    }
+
+    public List<BatchItemResultDto> updateAll(List<ProductDto> dtos) {
+        return write(dtos, true, this::updateChunk);
+    }
+
+    private List<BatchItemResultDto> write(List<ProductDto> dtos, boolean requireId,
+                                           Function<List<Item>, List<BatchItemResultDto>> chunkWriter) {
+        if (dtos.size() > MAX_BATCH_SIZE) {
+            throw new FormatErrorException("A batch accepts at most " + MAX_BATCH_SIZE + " products");
+        }
+
+        BatchItemResultDto[] results = new BatchItemResultDto[dtos.size()];
+        List<Item> valid = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            String error = validate(dtos.get(i), requireId);
+            if (error == null) {
+                valid.add(new Item(i, dtos.get(i)));
+            } else {
+                results[i] = failure(i, dtos.get(i), HttpStatus.BAD_REQUEST, error);
+            }
+        }
+
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            List<Item> chunk = valid.subList(from, Math.min(from + chunkSize, valid.size()));
+            for (BatchItemResultDto result : writeChunk(chunk, chunkWriter)) {
+                results[result.getIndex()] = result;
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private List<BatchItemResultDto> writeChunk(List<Item> chunk,
+                                                Function<List<Item>, List<BatchItemResultDto>> chunkWriter) {
+        try {
+            return transactionTemplate.execute(status -> chunkWriter.apply(chunk));
+        } catch (RuntimeException chunkFailure) {
+            List<BatchItemResultDto> results = new ArrayList<>(chunk.size());
+            for (Item item : chunk) {
+                try {
+                    results.addAll(transactionTemplate.execute(status -> chunkWriter.apply(Collections.singletonList(item))));
+                } catch (RuntimeException e) {
+                    results.add(failure(item.index, item.dto, HttpStatus.CONFLICT, "Could not save product"));
+                }
+            }
+            return results;
+        }
+    }
+
+    private List<BatchItemResultDto> insertChunk(List<Item> chunk) {
+        List<Product> entities = new ArrayList<>(chunk.size());
+        for (Item item : chunk) {
+            Product entity = new Product();
+            ProductService.convertDtoToEntity(item.dto, entity);
+            entities.add(entity);
+        }
+        productRepository.saveAll(entities);
+        productRepository.flush();
+
+        List<BatchItemResultDto> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Product entity = entities.get(i);
+            eventPublisher.publishEvent(ProductChangedEvent.created(entity));
+            results.add(new BatchItemResultDto(chunk.get(i).index, ProductIdGenerator.format(entity.getId()), HttpStatus.CREATED.value(), null));
+        }
+        return results;
+    }
+
+    private List<BatchItemResultDto> updateChunk(List<Item> chunk) {
+        Set<Long> ids = chunk.stream()
+                .map(item -> ProductIdGenerator.parse(item.dto.getId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Product> entities = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<BatchItemResultDto> results = new ArrayList<>(chunk.size());
+        List<Product> updated = new ArrayList<>(chunk.size());
+        for (Item item : chunk) {
+            Product entity = entities.get(ProductIdGenerator.parse(item.dto.getId()));
+            if (entity == null) {
+                results.add(failure(item.index, item.dto, HttpStatus.NOT_FOUND, "Resource not found"));
+                continue;
+            }
+            ProductService.convertDtoToEntity(item.dto, entity);
+            updated.add(entity);
+            results.add(new BatchItemResultDto(item.index, ProductIdGenerator.format(entity.getId()), HttpStatus.OK.value(),
+                    null));
+        }
+        productRepository.flush();
+        updated.forEach(entity -> eventPublisher.publishEvent(ProductChangedEvent.updated(entity)));
+        return results;
+    }
+
+    private String validate(ProductDto dto, boolean requireId) {
+        if (dto == null) {
+            return "Invalid product";
+        }
+        if (requireId && dto.getId() == null) {
+            return "The field id is invalid!";
+        }
+        Set<ConstraintViolation<ProductDto>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return String.format("The field %s is invalid!", violations.iterator().next().getPropertyPath());
+    }
+
+    private static BatchItemResultDto failure(int index, ProductDto dto, HttpStatus status, String message) {
+        return new BatchItemResultDto(index, dto == null ? null : dto.getId(), status.value(), message);
+    }
+
+    private static final class Item {
+
+        private final int index;
+
+        private final ProductDto dto;
+
+        private Item(int index, ProductDto dto) {
+            this.index = index;
+            this.dto = dto;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.compasso.projectms.domain.service;
+
+import com.compasso.projectms.api.dto.ProductChangeDto;
+import com.compasso.projectms.domain.entity.ProductChange;
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import com.compasso.projectms.domain.repository.ProductChangeRepository;
+import com.compasso.projectms.domain.service.exceptions.ChangesExpiredException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Change feed of product writes, backed by the {@code product_change} outbox table.
+ *
+ * <p>Each {@link ProductChangedEvent} of a JPA write is appended just before its transaction
+ * commits, so a rolled-back write leaves no change behind; reactive writes insert their change
+ * in their own R2DBC transaction and report it through {@link #allocated}, {@link #committed}
+ * and {@link #abandoned}. Sequences are taken one at a time, in the order the changes are
+ * written, but transactions commit in any order, so readers only ever see the gap-free prefix
+ * of the table: a missing sequence holds back the changes after it while it belongs to a
+ * transaction of this instance that is still running, or, for one this instance knows nothing
+ * about, until the change after it is {@code product.changes.gap-timeout} old. Gaps left by
+ * rolled-back writes of this instance are skipped at once. A consumer that has seen sequence
+ * {@code n} thus never later finds a committed change below {@code n}, as long as no write
+ * takes longer than the gap timeout to commit, and no instance's clock is further off than it.
+ *
+ * <p>One dispatcher thread, woken after every commit and every {@code product.changes.poll-interval},
+ * reads the changes for all subscribers. Delivery runs on a separate pool, in order per subscriber
+ * and with at most {@link #MAX_IN_FLIGHT} batches queued, so a slow consumer only holds up itself.
+ * Changes older than {@code product.changes.retention} are purged; a consumer asking for purged
+ * changes gets {@link ChangesExpiredException} and has to reload the catalog.
+ */
+@Service
+public class ProductChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeFeed.class);
+
+    public static final int MAX_BATCH_SIZE = 500;
+
+    static final int MAX_IN_FLIGHT = 4;
+
+    private final ProductChangeRepository productChangeRepository;
+
+    private final Duration pollInterval;
+
+    private final Duration retention;
+
+    private final Duration gapTimeout;
+
+    /**
+     * Sequences taken by transactions of this instance that have not completed yet.
+     */
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+
+    /**
+     * Sequences taken by transactions of this instance that rolled back, with the time they did.
+     */
+    private final ConcurrentNavigableMap<Long, Instant> abandoned = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * The latest sequence each thread appended in a transaction that committed.
+     */
+    private final ThreadLocal<long[]> committedOnThread = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final AtomicLong purgedThrough = new AtomicLong();
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ExecutorService delivery = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "product-change-delivery");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public ProductChangeFeed(ProductChangeRepository productChangeRepository,
+                             @Value("${product.changes.poll-interval:5s}") Duration pollInterval,
+                             @Value("${product.changes.retention:7d}") Duration retention,
+                             @Value("${product.changes.gap-timeout:5s}") Duration gapTimeout) {
+        this.productChangeRepository = productChangeRepository;
+        this.pollInterval = pollInterval;
+        this.retention = retention;
+        this.gapTimeout = gapTimeout;
+    }
+
+    @PostConstruct
+    public void start() {
+        Long min = productChangeRepository.findMinSequence();
+        purgedThrough.set(min == null ? 0 : min - 1);
+        refreshHead();
+        dispatcher.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        dispatcher.scheduleWithFixedDelay(this::purge, 1, 60, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+        delivery.shutdownNow();
+    }
+
+    /**
+     * Appends the change of a write running in a JPA transaction; writes outside one append
+     * their change themselves.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void append(ProductChangedEvent event) {
+        Appended appended = (Appended) TransactionSynchronizationManager.getResource(this);
+        if (appended == null) {
+            appended = new Appended();
+            TransactionSynchronizationManager.bindResource(this, appended);
+            TransactionSynchronizationManager.registerSynchronization(appended);
+        }
+        long sequence = productChangeRepository.save(new ProductChange(event)).getSequence();
+        allocated(sequence);
+        appended.sequences.add(sequence);
+    }
+
+    /**
+     * Marks {@code sequence} as taken by a transaction that has yet to complete, so readers wait
+     * for it.
+     */
+    public void allocated(long sequence) {
+        inFlight.add(sequence);
+    }
+
+    /**
+     * Reports the change at {@code sequence} as committed and wakes the subscribers.
+     */
+    public void committed(long sequence) {
+        inFlight.remove(sequence);
+        head.accumulateAndGet(sequence, Math::max);
+        if (!subscriptions.isEmpty()) {
+            dispatcher.execute(this::dispatch);
+        }
+    }
+
+    /**
+     * Reports that the transaction which took {@code sequence} rolled back, so readers skip it.
+     */
+    public void abandoned(long sequence) {
+        abandoned.put(sequence, Instant.now());
+        inFlight.remove(sequence);
+    }
+
+    /**
+     * Changes committed after sequence {@code after}, oldest first.
+     */
+    public List<ProductChangeDto> read(long after, int limit) {
+        checkRetained(after);
+        Instant settled = Instant.now().minus(gapTimeout);
+        List<ProductChangeDto> changes = new ArrayList<>();
+        long expected = after + 1;
+        for (ProductChange change : productChangeRepository
+                .findBySequenceGreaterThanOrderBySequence(after, PageRequest.of(0, batchSize(limit)))) {
+            long sequence = change.getSequence();
+            if (sequence > expected && !isGapClosed(expected, sequence - 1, change.getChangedAt(), settled)) {
+                break;
+            }
+            changes.add(new ProductChangeDto(change));
+            expected = sequence + 1;
+        }
+        return changes;
+    }
+
+    /**
+     * Whether no change can still be committed in {@code [from, to]}, the sequences missing
+     * before a change made at {@code nextChangedAt}.
+     */
+    private boolean isGapClosed(long from, long to, Instant nextChangedAt, Instant settled) {
+        if (!inFlight.subSet(from, true, to, true).isEmpty()) {
+            return false;
+        }
+        return !nextChangedAt.isAfter(settled) || abandoned.subMap(from, true, to, true).size() == to - from + 1;
+    }
+
+    /**
+     * Delivers every change after {@code after} to {@code consumer}, in order and in batches of at
+     * most {@code limit}, until the subscription is cancelled. If the consumer throws, the
+     * subscription is cancelled.
+     */
+    public Subscription subscribe(long after, int limit, Consumer<List<ProductChangeDto>> consumer) {
+        checkRetained(after);
+        Subscription subscription = new Subscription(after, batchSize(limit), consumer);
+        subscriptions.add(subscription);
+        dispatcher.execute(this::dispatch);
+        return subscription;
+    }
+
+    public long head() {
+        return head.get();
+    }
+
+    /**
+     * The latest sequence appended by a committed JPA transaction of the current thread, or
+     * {@code 0}; unlike {@link #head()} it does not depend on which changes this instance has
+     * heard of yet.
+     */
+    public long committedOnCurrentThread() {
+        return committedOnThread.get()[0];
+    }
+
+    public int subscriptionCount() {
+        return subscriptions.size();
+    }
+
+    private static int batchSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_BATCH_SIZE));
+    }
+
+    private void checkRetained(long after) {
+        if (after < purgedThrough.get()) {
+            throw new ChangesExpiredException("Changes after " + after + " were purged, reload the products");
+        }
+    }
+
+    private void poll() {
+        try {
+            // picks up changes this instance was not told about, e.g. rows written by another one
+            refreshHead();
+            Instant forgotten = Instant.now().minus(gapTimeout.multipliedBy(2));
+            abandoned.values().removeIf(at -> at.isBefore(forgotten));
+            dispatch();
+        } catch (RuntimeException e) {
+            log.warn("Could not poll the product change feed", e);
+        }
+    }
+
+    private void refreshHead() {
+        Long max = productChangeRepository.findMaxSequence();
+        if (max != null) {
+            head.accumulateAndGet(max, Math::max);
+        }
+    }
+
+    private void dispatch() {
+        long latest = head.get();
+        // subscribers at the same position share one read
+        Map<List<Long>, List<ProductChangeDto>> reads = new HashMap<>();
+        for (Subscription subscription : subscriptions) {
+            while (!subscription.cancelled && subscription.position < latest
+                    && subscription.inFlight.get() < MAX_IN_FLIGHT) {
+                List<ProductChangeDto> changes;
+                try {
+                    changes = reads.computeIfAbsent(Arrays.asList(subscription.position, (long) subscription.limit),
+                            key -> read(key.get(0), key.get(1).intValue()));
+                } catch (ChangesExpiredException e) {
+                    subscription.cancel();
+                    break;
+                } catch (RuntimeException e) {
+                    log.warn("Could not read product changes after {}", subscription.position, e);
+                    break;
+                }
+                if (changes.isEmpty()) {
+                    break;
+                }
+                subscription.position = changes.get(changes.size() - 1).getSequence();
+                subscription.deliver(changes);
+            }
+        }
+    }
+
+    private void purge() {
+        try {
+            Long through = productChangeRepository.findMaxSequenceBefore(Instant.now().minus(retention));
+            if (through != null) {
+                purgedThrough.accumulateAndGet(through, Math::max);
+                int deleted = productChangeRepository.deleteThrough(through);
+                log.info("Purged {} product changes through sequence {}", deleted, through);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not purge the product change feed", e);
+        }
+    }
+
+    public final class Subscription {
+
+        private final int limit;
+
+        private final Consumer<List<ProductChangeDto>> consumer;
+
+        private volatile long position;
+
+        private volatile boolean cancelled;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private CompletableFuture<Void> delivered = CompletableFuture.completedFuture(null);
+
+        private Subscription(long after, int limit, Consumer<List<ProductChangeDto>> consumer) {
+            this.position = after;
+            this.limit = limit;
+            this.consumer = consumer;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        private void deliver(List<ProductChangeDto> changes) {
+            inFlight.incrementAndGet();
+            delivered = delivered.thenRunAsync(() -> {
+                try {
+                    if (!cancelled) {
+                        consumer.accept(changes);
+                    }
+                } catch (RuntimeException e) {
+                    cancel();
+                } finally {
+                    if (inFlight.getAndDecrement() == MAX_IN_FLIGHT) {
+                        dispatcher.execute(ProductChangeFeed.this::dispatch);
+                    }
+                }
+            }, delivery);
+        }
+    }
+
+    /**
+     * Sequences of the changes appended by the current transaction, reported as committed or
+     * abandoned once it is over.
+     */
+    private final class Appended implements TransactionSynchronization {
+
+        private final List<Long> sequences = new ArrayList<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ProductChangeFeed.this);
+            long[] latest = committedOnThread.get();
+            for (long sequence : sequences) {
+                if (status == STATUS_COMMITTED) {
+                    latest[0] = Math.max(latest[0], sequence);
+                    committed(sequence);
+                } else {
+                    abandoned(sequence);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.compasso.projectms.domain.service;
+
+import com.compasso.projectms.api.dto.BatchItemResultDto;
+import com.compasso.projectms.api.dto.ImportReportDto;
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.service.exceptions.FormatErrorException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Imports product catalogs from NDJSON or CSV. Input is parsed one record at a time and
+ * written through {@link ProductBatchService} in fixed-size batches, so memory use does not
+ * depend on the size of the file.
+ */
+@Service
+public class ProductImportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final int PROGRESS_INTERVAL = 100_000;
+
+    private static final int FINISHED_REPORTS_KEPT = 20;
+
+    private final ProductBatchService productBatchService;
+
+    private final ObjectReader ndjsonReader;
+
+    private final ObjectReader csvReader;
+
+    private final Path importDirectory;
+
+    private final int batchSize;
+
+    private final Map<String, ImportReportDto> running = new ConcurrentHashMap<>();
+
+    private final Deque<ImportReportDto> finished = new ConcurrentLinkedDeque<>();
+
+    @Autowired
+    public ProductImportService(ProductBatchService productBatchService, ObjectMapper objectMapper,
+                                @Value("${product.import.directory:}") String importDirectory,
+                                @Value("${product.batch.chunk-size:500}") int batchSize) {
+        this.productBatchService = productBatchService;
+        this.ndjsonReader = objectMapper.readerFor(ProductDto.class);
+        this.csvReader = new CsvMapper()
+                .enable(CsvParser.Feature.WRAP_AS_ARRAY)
+                .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+                .enable(CsvParser.Feature.TRIM_SPACES)
+                .readerFor(String[].class);
+        this.importDirectory = importDirectory.isEmpty() ? null : Paths.get(importDirectory).toAbsolutePath().normalize();
+        this.batchSize = batchSize;
+    }
+
+    public static Format formatOf(String name) {
+        String lower = name == null ? "" : name.toLowerCase(Locale.ROOT);
+        if (lower.endsWith("csv")) {
+            return Format.CSV;
+        }
+        if (lower.endsWith("ndjson") || lower.endsWith("jsonl") || lower.endsWith("json")) {
+            return Format.NDJSON;
+        }
+        throw new FormatErrorException("Unsupported import format " + name);
+    }
+
+    public ImportReportDto importStream(InputStream in, Format format, String source) {
+        ImportReportDto report = new ImportReportDto(UUID.randomUUID().toString(), source);
+        running.put(report.getId(), report);
+        Batch batch = new Batch(report);
+        try {
+            if (format == Format.CSV) {
+                readCsv(in, batch);
+            } else {
+                readNdjson(in, batch);
+            }
+            batch.flush();
+            report.finish(ImportReportDto.Status.COMPLETED, null);
+        } catch (IOException e) {
+            batch.flush();
+            report.finish(ImportReportDto.Status.FAILED, "Could not read input: " + e.getMessage());
+        } catch (RuntimeException e) {
+            report.finish(ImportReportDto.Status.FAILED, e.getMessage());
+            throw e;
+        } finally {
+            batch.updateProgress();
+            running.remove(report.getId());
+            finished.addFirst(report);
+            while (finished.size() > FINISHED_REPORTS_KEPT) {
+                finished.pollLast();
+            }
+        }
+        log.info("Import {} of {} {}: {} rows read, {} imported, {} failed, {} rows/s", report.getId(), source,
+                report.getStatus(), report.getRowsRead(), report.getImported(), report.getFailed(),
+                report.getRowsPerSecond());
+        return report;
+    }
+
+    /**
+     * Imports a file from the configured {@code product.import.directory}; paths outside it
+     * are rejected.
+     */
+    public ImportReportDto importFile(String path) {
+        if (importDirectory == null) {
+            throw new FormatErrorException("File imports are disabled");
+        }
+        Path file = importDirectory.resolve(path).normalize();
+        if (!file.startsWith(importDirectory) || !Files.isRegularFile(file)) {
+            throw new FormatErrorException("Invalid import file " + path);
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return importStream(in, formatOf(file.getFileName().toString()), file.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public List<ImportReportDto> reports() {
+        List<ImportReportDto> reports = new ArrayList<>(running.values());
+        reports.addAll(finished);
+        return reports;
+    }
+
+    private void readNdjson(InputStream in, Batch batch) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        long line = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                batch.add(line, ndjsonReader.readValue(text));
+            } catch (JsonProcessingException e) {
+                batch.reject(line, "Invalid Json format");
+            }
+        }
+    }
+
+    private void readCsv(InputStream in, Batch batch) throws IOException {
+        try (MappingIterator<String[]> rows = csvReader.readValues(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            if (!rows.hasNextValue()) {
+                return;
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            String[] header = rows.nextValue();
+            for (int i = 0; i < header.length; i++) {
+                columns.put(header[i].toLowerCase(Locale.ROOT), i);
+            }
+            if (!columns.keySet().containsAll(List.of("name", "description", "price"))) {
+                throw new FormatErrorException("CSV header must contain name, description and price");
+            }
+
+            while (rows.hasNextValue()) {
+                String[] row = rows.nextValue();
+                long line = rows.getCurrentLocation().getLineNr();
+                try {
+                    String price = column(row, columns.get("price"));
+                    batch.add(line, new ProductDto(column(row, columns.get("name")),
+                            column(row, columns.get("description")),
+                            price == null || price.isEmpty() ? null : new BigDecimal(price)));
+                } catch (NumberFormatException e) {
+                    batch.reject(line, "The field price is invalid!");
+                }
+            }
+        }
+    }
+
+    private static String column(String[] row, int index) {
+        return index < row.length ? row[index] : null;
+    }
+
+    private final class Batch {
+
+        private final ImportReportDto report;
+
+        private final long start = System.nanoTime();
+
+        private final List<ProductDto> products = new ArrayList<>(batchSize);
+
+        private final List<Long> lines = new ArrayList<>(batchSize);
+
+        private long rowsRead;
+
+        private long imported;
+
+        private Batch(ImportReportDto report) {
+            this.report = report;
+        }
+
+        private void add(long line, ProductDto dto) {
+            rowsRead++;
+            products.add(dto);
+            lines.add(line);
+            if (products.size() == batchSize) {
+                flush();
+            }
+        }
+
+        private void reject(long line, String message) {
+            rowsRead++;
+            report.addError(line, message);
+        }
+
+        private void flush() {
+            if (products.isEmpty()) {
+                return;
+            }
+            Collection<BatchItemResultDto> results = productBatchService.insertAll(products);
+            for (BatchItemResultDto result : results) {
+                if (result.isSuccess()) {
+                    imported++;
+                } else {
+                    report.addError(lines.get(result.getIndex()), result.getMessage());
+                }
+            }
+            long before = report.getRowsRead() / PROGRESS_INTERVAL;
+            updateProgress();
+            if (rowsRead / PROGRESS_INTERVAL > before) {
+                log.info("Import {}: {} rows read, {} rows/s", report.getId(), rowsRead, report.getRowsPerSecond());
+            }
+            products.clear();
+            lines.clear();
+        }
+
+        private void updateProgress() {
+            report.progress(rowsRead, imported, System.nanoTime() - start);
+        }
+    }
+}
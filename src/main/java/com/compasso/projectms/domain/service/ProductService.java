@@ -1,31 +1,94 @@
 package com.compasso.projectms.domain.service;
 
 import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.api.dto.ProductLookupDto;
+import com.compasso.projectms.api.dto.ProductLookupItemDto;
+import com.compasso.projectms.api.dto.ProductPageDto;
+import com.compasso.projectms.domain.cache.ProductCache;
+import com.compasso.projectms.domain.cache.ProductSearchCache;
 import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.compasso.projectms.domain.index.ProductIdFilter;
+import com.compasso.projectms.domain.index.ProductPriceIndex;
+import com.compasso.projectms.domain.index.ProductTextIndex;
 import com.compasso.projectms.domain.repository.ProductRepository;
+import com.compasso.projectms.domain.repository.ProductSearchRepository;
+import com.compasso.projectms.domain.repository.ProductStreamRepository;
+import com.compasso.projectms.domain.snapshot.ProductSnapshot;
+import com.compasso.projectms.domain.snapshot.ProductSnapshotStore;
 import com.compasso.projectms.domain.service.exceptions.FormatErrorException;
+import com.compasso.projectms.domain.service.exceptions.PreconditionFailedException;
 import com.compasso.projectms.domain.service.exceptions.ProductNotFoundException;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.persistence.EntityNotFoundException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+
+import static com.compasso.projectms.domain.repository.spec.ProductSpec.matchesMinMax;
+import static com.compasso.projectms.domain.repository.spec.ProductSpec.matchesNameOrDescription;
 
 @Service
 public class ProductService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public static final int MAX_LOOKUP_SIZE = 1000;
+
+    private static final int ID_CHUNK_SIZE = 500;
+
     private final ProductRepository productRepository;
 
+    private final ProductStreamRepository productStreamRepository;
+
+    private final ProductSearchRepository productSearchRepository;
+
+    private final ProductTextIndex productTextIndex;
+
+    private final ProductPriceIndex productPriceIndex;
+
+    private final ProductCache productCache;
+
+    private final ProductSearchCache productSearchCache;
+
+    private final ProductSnapshotStore productSnapshotStore;
+
+    private final ProductIdFilter productIdFilter;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, ProductStreamRepository productStreamRepository,
+                          ProductSearchRepository productSearchRepository, ProductTextIndex productTextIndex,
+                          ProductPriceIndex productPriceIndex, ProductCache productCache,
+                          ProductSearchCache productSearchCache, ProductSnapshotStore productSnapshotStore,
+                          ProductIdFilter productIdFilter, ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
+        this.productStreamRepository = productStreamRepository;
+        this.productSearchRepository = productSearchRepository;
+        this.productTextIndex = productTextIndex;
+        this.productPriceIndex = productPriceIndex;
+        this.productCache = productCache;
+        this.productSearchCache = productSearchCache;
+        this.productSnapshotStore = productSnapshotStore;
+        this.productIdFilter = productIdFilter;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -34,6 +97,7 @@ public class ProductService {
             Product entity = new Product();
             convertDtoToEntity(dto, entity);
             entity = productRepository.save(entity);
+            eventPublisher.publishEvent(ProductChangedEvent.created(entity));
             return new ProductDto(entity);
         } catch (HttpMessageNotReadableException e) {
             throw new FormatErrorException("Invalid Json Format");
@@ -42,15 +106,25 @@ public class ProductService {
 
     @Transactional
     public ProductDto update(String id, ProductDto dto) {
+        return update(id, dto, null);
+    }
+
+    /**
+     * Updates a product only while it is still at one of {@code expectedVersions}, when they are
+     * given. The change is flushed here so that a concurrent update surfaces as
+     * {@link PreconditionFailedException} and the returned dto carries the new version.
+     */
+    @Transactional
+    public ProductDto update(String id, ProductDto dto, Collection<Long> expectedVersions) {
+        Product entity = findForWrite(id, expectedVersions);
         try {
-            Product entity = productRepository.getOne(id);
             convertDtoToEntity(dto, entity);
-            entity = productRepository.save(entity);
-            return new ProductDto(entity);
-        }
-        catch (EntityNotFoundException e) {
-            throw new ProductNotFoundException("Id not found " + id);
+            entity = productRepository.saveAndFlush(entity);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new PreconditionFailedException("Product " + id + " was modified concurrently");
         }
+        eventPublisher.publishEvent(ProductChangedEvent.updated(entity));
+        return new ProductDto(entity);
     }
 
     @Transactional(readOnly = true)
@@ -58,40 +132,219 @@ public class ProductService {
         return productRepository.findAll();
     }
 
-    @Transactional(readOnly = true)
+    public ProductPageDto findPage(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        Long after = cursor == null ? null : PageCursor.decodeId(cursor);
+
+        ProductSnapshot snapshot = productSnapshotStore.current();
+        List<ProductDto> items;
+        if (snapshot != null) {
+            items = snapshot.page(after, pageSize + 1);
+        } else {
+            items = after == null
+                    ? productRepository.findDtoPage(pageable)
+                    : productRepository.findDtoPageAfter(after, pageable);
+        }
+
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            nextCursor = PageCursor.encode(items.get(pageSize - 1).getId());
+        }
+        return new ProductPageDto(items, nextCursor);
+    }
+
+    public void streamAll(Consumer<ProductDto> consumer) {
+        productStreamRepository.forEach(product -> consumer.accept(new ProductDto(product)));
+    }
+
     public ProductDto findById(String id) {
-        Optional<Product> obj = productRepository.findById(id);
-        Product entity = obj.orElseThrow(() -> new ProductNotFoundException("Entity not found"));
-        return new ProductDto(entity);
+        Long productId = ProductIdGenerator.parse(id);
+        ProductSnapshot snapshot = productSnapshotStore.current();
+        ProductDto dto;
+        if (productId == null) {
+            dto = null;
+        } else if (snapshot != null) {
+            dto = snapshot.find(productId);
+        } else if (!productIdFilter.mightContain(productId)) {
+            dto = null;
+        } else {
+            dto = productCache.get(ProductIdGenerator.format(productId),
+                    key -> productRepository.findDtoById(productId).orElse(null));
+        }
+        if (dto == null) {
+            throw new ProductNotFoundException("Entity not found");
+        }
+        return dto;
     }
 
+    /**
+     * Resolves many ids at once, in the order given: from the product snapshot when one is
+     * served, otherwise from the {@link ProductCache} and, for the rest that the
+     * {@link ProductIdFilter} does not rule out, in chunked {@code IN} queries. Ids that do not exist or do not parse are reported as not found in their place.
+     */
+    public ProductLookupDto findAllById(List<String> ids) {
+        if (ids.size() > MAX_LOOKUP_SIZE) {
+            throw new FormatErrorException("A lookup accepts at most " + MAX_LOOKUP_SIZE + " ids");
+        }
+        Map<Long, ProductDto> found = new HashMap<>();
+        ProductSnapshot snapshot = productSnapshotStore.current();
+        List<Long> misses = new ArrayList<>();
+        for (String id : ids) {
+            Long productId = ProductIdGenerator.parse(id);
+            if (productId == null || found.containsKey(productId)) {
+                continue;
+            }
+            ProductDto dto = snapshot != null ? snapshot.find(productId)
+                    : productCache.getIfPresent(ProductIdGenerator.format(productId));
+            found.put(productId, dto);
+            if (dto == null && snapshot == null && productIdFilter.mightContain(productId)) {
+                misses.add(productId);
+            }
+        }
+        for (int from = 0; from < misses.size(); from += ID_CHUNK_SIZE) {
+            List<Long> chunk = misses.subList(from, Math.min(from + ID_CHUNK_SIZE, misses.size()));
+            for (ProductDto dto : productRepository.findDtosByIdIn(chunk)) {
+                found.put(ProductIdGenerator.parse(dto.getId()), dto);
+            }
+        }
+
+        List<ProductLookupItemDto> items = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Long productId = ProductIdGenerator.parse(ids.get(i));
+            items.add(new ProductLookupItemDto(i, ids.get(i), productId == null ? null : found.get(productId)));
+        }
+        return new ProductLookupDto(items);
+    }
+
+    @Transactional
     public void delete(String id) {
+        delete(id, null);
+    }
+
+    /**
+     * Deletes a product only while it is still at one of {@code expectedVersions}, when they are
+     * given.
+     */
+    @Transactional
+    public void delete(String id, Collection<Long> expectedVersions) {
+        if (expectedVersions != null) {
+            Product entity = findForWrite(id, expectedVersions);
+            try {
+                productRepository.delete(entity);
+                productRepository.flush();
+            } catch (ObjectOptimisticLockingFailureException e) {
+                throw new PreconditionFailedException("Product " + id + " was modified concurrently");
+            }
+            eventPublisher.publishEvent(ProductChangedEvent.deleted(ProductIdGenerator.format(entity.getId())));
+            return;
+        }
+        Long productId = ProductIdGenerator.parse(id);
         try {
-            productRepository.deleteById(id);
+            if (productId == null) {
+                throw new EmptyResultDataAccessException(1);
+            }
+            productRepository.deleteById(productId);
+            eventPublisher.publishEvent(ProductChangedEvent.deleted(ProductIdGenerator.format(productId)));
         } catch (EmptyResultDataAccessException e) {
             throw new ProductNotFoundException("Id not found " + id);
         }
     }
 
+    private Product findForWrite(String id, Collection<Long> expectedVersions) {
+        Long productId = ProductIdGenerator.parse(id);
+        Product entity = (productId == null ? Optional.<Product>empty() : productRepository.findById(productId))
+                .orElseThrow(() -> new ProductNotFoundException("Id not found " + id));
+        if (expectedVersions != null && !expectedVersions.contains(entity.getVersion())) {
+            throw new PreconditionFailedException("Product " + id + " is at another version");
+        }
+        return entity;
+    }
+
     @Transactional(readOnly = true)
     public List<Product> findAllSpec(Specification<Product> spec) {
         return productRepository.findAll(spec);
     }
 
-    private void convertDtoToEntity(ProductDto dto, Product entity) {
+    /**
+     * Answers the text part of a search from {@link ProductTextIndex} and the price range from
+     * {@link ProductPriceIndex}, and only goes to the database to load the matching ids, which are
+     * kept in the {@link ProductSearchCache}. Text matches come back by relevance, price-only
+     * searches by ascending price. Until the indexes have been built the search runs entirely as
+     * a query, or as a scan of the product snapshot when one is served. Identical searches
+     * running at the same time share one execution.
+     */
+    public List<ProductDto> search(String nameOrDescription, BigDecimal minPrice, BigDecimal maxPrice) {
+        return productSearchCache.coalesce(nameOrDescription, minPrice, maxPrice,
+                () -> searchUncoalesced(nameOrDescription, minPrice, maxPrice));
+    }
+
+    private List<ProductDto> searchUncoalesced(String nameOrDescription, BigDecimal minPrice, BigDecimal maxPrice) {
+        boolean textFilter = nameOrDescription != null;
+        if ((textFilter && (!productTextIndex.isReady() || ProductTextIndex.tokenize(nameOrDescription).isEmpty()))
+                || !productPriceIndex.isReady()) {
+            ProductSnapshot snapshot = productSnapshotStore.current();
+            if (snapshot != null) {
+                return snapshot.filter(dto -> matchesNameOrDescription(dto, nameOrDescription)
+                        && matchesMinMax(dto, minPrice, maxPrice));
+            }
+            return productSearchRepository.search(nameOrDescription, minPrice, maxPrice);
+        }
+
+        List<String> ids = productSearchCache.ids(nameOrDescription, minPrice, maxPrice, () -> {
+            if (!textFilter) {
+                return productPriceIndex.range(minPrice, maxPrice);
+            }
+            List<String> matches = productTextIndex.search(nameOrDescription);
+            if (minPrice != null || maxPrice != null) {
+                matches.removeIf(id -> !productPriceIndex.contains(id, minPrice, maxPrice));
+            }
+            return matches;
+        });
+        return findDtosByIdInOrder(ids);
+    }
+
+    private List<ProductDto> findDtosByIdInOrder(List<String> ids) {
+        ProductSnapshot snapshot = productSnapshotStore.current();
+        if (snapshot != null) {
+            List<ProductDto> products = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                ProductDto dto = snapshot.find(ProductIdGenerator.parse(id));
+                if (dto != null) {
+                    products.add(dto);
+                }
+            }
+            return products;
+        }
+
+        Map<String, Integer> position = new HashMap<>();
+        List<Long> productIds = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            position.put(ids.get(i), i);
+            productIds.add(ProductIdGenerator.parse(ids.get(i)));
+        }
+
+        List<ProductDto> products = new ArrayList<>(ids.size());
+        for (int from = 0; from < productIds.size(); from += ID_CHUNK_SIZE) {
+            List<Long> chunk = productIds.subList(from, Math.min(from + ID_CHUNK_SIZE, productIds.size()));
+            products.addAll(productRepository.findDtosByIdIn(chunk));
+        }
+        products.sort(Comparator.comparing(product -> position.get(product.getId())));
+        return products;
+    }
+
+    static void convertDtoToEntity(ProductDto dto, Product entity) {
         entity.setName(dto.getName());
         entity.setDescription(dto.getDescription());
         entity.setPrice(dto.getPrice());
     }
 
     public List<ProductDto> convertEntityToDto(List<Product> products) {
-        ModelMapper modelMapper = new ModelMapper();
-        List<ProductDto> productsDto = new ArrayList<>();
-
-        products.forEach(product -> {
-            ProductDto dto = modelMapper.map(product, ProductDto.class);
-            productsDto.add(dto);
-        });
+        List<ProductDto> productsDto = new ArrayList<>(products.size());
+        for (Product product : products) {
+            productsDto.add(new ProductDto(product));
+        }
         return productsDto;
     }
 }
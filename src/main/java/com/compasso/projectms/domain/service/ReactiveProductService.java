@@ -0,0 +1,391 @@
+package com.compasso.projectms.domain.service;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.api.dto.ProductLookupDto;
+import com.compasso.projectms.api.dto.ProductLookupItemDto;
+import com.compasso.projectms.api.dto.ProductPageDto;
+import com.compasso.projectms.domain.cache.ProductSearchCache;
+import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.entity.ProductChange;
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.compasso.projectms.domain.index.ProductIdFilter;
+import com.compasso.projectms.domain.index.ProductPriceIndex;
+import com.compasso.projectms.domain.index.ProductTextIndex;
+import com.compasso.projectms.domain.repository.spec.ProductSpec;
+import com.compasso.projectms.domain.service.exceptions.FormatErrorException;
+import com.compasso.projectms.domain.service.exceptions.PreconditionFailedException;
+import com.compasso.projectms.domain.service.exceptions.ProductNotFoundException;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuples;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Non-blocking counterpart of {@link ProductService} for the reactive mode. Reads and single
+ * product writes go through R2DBC; searches are answered from the same in-memory indexes, and
+ * writes publish the same {@link ProductChangedEvent}s so the indexes and the cache follow them.
+ * Each write appends its change to the {@link ProductChangeFeed} in its own R2DBC transaction.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductService {
+
+    private static final String SELECT = "SELECT id, name, description, price, version FROM product";
+
+    private static final int ID_CHUNK_SIZE = 500;
+
+    private final DatabaseClient databaseClient;
+
+    private final ProductTextIndex productTextIndex;
+
+    private final ProductPriceIndex productPriceIndex;
+
+    private final ProductSearchCache productSearchCache;
+
+    private final ProductIdFilter productIdFilter;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final ProductChangeFeed productChangeFeed;
+
+    @Autowired
+    public ReactiveProductService(DatabaseClient databaseClient, ProductTextIndex productTextIndex,
+                                  ProductPriceIndex productPriceIndex, ProductSearchCache productSearchCache,
+                                  ProductIdFilter productIdFilter, ApplicationEventPublisher eventPublisher,
+                                  TransactionalOperator transactionalOperator, ProductChangeFeed productChangeFeed) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.productChangeFeed = productChangeFeed;
+        this.productTextIndex = productTextIndex;
+        this.productPriceIndex = productPriceIndex;
+        this.productSearchCache = productSearchCache;
+        this.productIdFilter = productIdFilter;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public Mono<ProductDto> insert(ProductDto dto) {
+        long id = ProductIdGenerator.nextId();
+        Product product = new Product(ProductIdGenerator.format(id), dto.getName(), dto.getDescription(), dto.getPrice());
+        product.setVersion(0L);
+        Mono<ProductDto> write = databaseClient.sql("INSERT INTO product (id, name, description, price, version)"
+                        + " VALUES (:id, :name, :description, :price, 0)")
+                .bind("id", id)
+                .bind("name", product.getName())
+                .bind("description", product.getDescription())
+                .bind("price", product.getPrice())
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> new ProductDto(product));
+        return withChange(write, created -> ProductChangedEvent.created(product));
+    }
+
+    /**
+     * Same contract as {@link ProductService#update(String, ProductDto, Collection)}: the version
+     * check and the increment happen in the update statement itself.
+     */
+    public Mono<ProductDto> update(String id, ProductDto dto, Collection<Long> expectedVersions) {
+        Long productId = ProductIdGenerator.parse(id);
+        if (productId == null) {
+            return Mono.error(new ProductNotFoundException("Id not found " + id));
+        }
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("UPDATE product"
+                        + " SET name = :name, description = :description, price = :price, version = version + 1"
+                        + " WHERE id = :id" + (expectedVersions == null ? "" : " AND version IN (:versions)"))
+                .bind("id", productId)
+                .bind("name", dto.getName())
+                .bind("description", dto.getDescription())
+                .bind("price", dto.getPrice());
+        if (expectedVersions != null) {
+            spec = spec.bind("versions", expectedVersions);
+        }
+        Mono<ProductDto> write = spec.fetch()
+                .rowsUpdated()
+                .flatMap(rows -> rows == 0
+                        ? findById(id).then(Mono.<ProductDto>error(() ->
+                                new PreconditionFailedException("Product " + id + " is at another version")))
+                        : findById(id))
+                .onErrorMap(ProductNotFoundException.class, e -> new ProductNotFoundException("Id not found " + id));
+        return withChange(write, updated -> {
+            Product product = new Product(updated.getId(), updated.getName(), updated.getDescription(),
+                    updated.getPrice());
+            product.setVersion(updated.getVersion());
+            return ProductChangedEvent.updated(product);
+        });
+    }
+
+    public Mono<Void> delete(String id) {
+        return delete(id, null);
+    }
+
+    /**
+     * Same contract as {@link ProductService#delete(String, Collection)}.
+     */
+    public Mono<Void> delete(String id, Collection<Long> expectedVersions) {
+        Long productId = ProductIdGenerator.parse(id);
+        if (productId == null) {
+            return Mono.error(new ProductNotFoundException("Id not found " + id));
+        }
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("DELETE FROM product WHERE id = :id"
+                        + (expectedVersions == null ? "" : " AND version IN (:versions)"))
+                .bind("id", productId);
+        if (expectedVersions != null) {
+            spec = spec.bind("versions", expectedVersions);
+        }
+        Mono<Integer> write = spec.fetch()
+                .rowsUpdated()
+                .flatMap(rows -> rows > 0 ? Mono.just(rows)
+                        : findById(id).then(Mono.<Integer>error(() ->
+                                new PreconditionFailedException("Product " + id + " is at another version"))))
+                .onErrorMap(ProductNotFoundException.class, e -> new ProductNotFoundException("Id not found " + id));
+        return withChange(write, rows -> ProductChangedEvent.deleted(ProductIdGenerator.format(productId))).then();
+    }
+
+    /**
+     * Runs {@code write} and appends the change it made in one transaction, then publishes the
+     * change once it is committed. The listeners run off the event loop.
+     */
+    private <T> Mono<T> withChange(Mono<T> write, Function<T, ProductChangedEvent> change) {
+        return Mono.defer(() -> {
+            AtomicLong sequence = new AtomicLong();
+            return write
+                    .flatMap(result -> {
+                        ProductChangedEvent event = change.apply(result);
+                        return append(event, sequence).thenReturn(Tuples.of(result, event));
+                    })
+                    .as(transactionalOperator::transactional)
+                    .doOnError(e -> abandon(sequence))
+                    .doOnCancel(() -> abandon(sequence))
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(written -> {
+                        productChangeFeed.committed(sequence.get());
+                        eventPublisher.publishEvent(written.getT2());
+                        return written.getT1();
+                    });
+        });
+    }
+
+    private Mono<Void> append(ProductChangedEvent event, AtomicLong sequence) {
+        ProductChange change = new ProductChange(event);
+        return databaseClient.sql("SELECT NEXT VALUE FOR product_change_sequence")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(next -> {
+                    sequence.set(next);
+                    productChangeFeed.allocated(next);
+                    DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("INSERT INTO product_change"
+                                    + " (sequence, type, product_id, name, description, price, version, changed_at)"
+                                    + " VALUES (:sequence, :type, :product_id, :name, :description, :price, :version,"
+                                    + " :changed_at)")
+                            .bind("sequence", next)
+                            .bind("type", change.getType().name())
+                            .bind("product_id", change.getProductId())
+                            // stored in local time, as Hibernate does
+                            .bind("changed_at", LocalDateTime.ofInstant(change.getChangedAt(), ZoneId.systemDefault()));
+                    spec = bindNullable(spec, "name", change.getName(), String.class);
+                    spec = bindNullable(spec, "description", change.getDescription(), String.class);
+                    spec = bindNullable(spec, "price", change.getPrice(), BigDecimal.class);
+                    spec = bindNullable(spec, "version", change.getVersion(), Long.class);
+                    return spec.fetch().rowsUpdated();
+                })
+                .then();
+    }
+
+    private void abandon(AtomicLong sequence) {
+        if (sequence.get() != 0) {
+            productChangeFeed.abandoned(sequence.get());
+        }
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec,
+                                                                 String name, Object value, Class<?> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+
+    public Mono<ProductDto> findById(String id) {
+        Long productId = ProductIdGenerator.parse(id);
+        if (productId == null || !productIdFilter.mightContain(productId)) {
+            return Mono.error(new ProductNotFoundException("Entity not found"));
+        }
+        return databaseClient.sql(SELECT + " WHERE id = :id")
+                .bind("id", productId)
+                .map(ReactiveProductService::toDto)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new ProductNotFoundException("Entity not found")));
+    }
+
+    public Mono<ProductPageDto> findPage(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, ProductService.MAX_PAGE_SIZE));
+        DatabaseClient.GenericExecuteSpec spec = cursor == null
+                ? databaseClient.sql(SELECT + " ORDER BY id LIMIT :limit")
+                : databaseClient.sql(SELECT + " WHERE id > :after ORDER BY id LIMIT :limit")
+                        .bind("after", PageCursor.decodeId(cursor));
+
+        return spec.bind("limit", pageSize + 1)
+                .map(ReactiveProductService::toDto)
+                .all()
+                .collectList()
+                .map(items -> {
+                    String nextCursor = null;
+                    if (items.size() > pageSize) {
+                        items = items.subList(0, pageSize);
+                        nextCursor = PageCursor.encode(items.get(pageSize - 1).getId());
+                    }
+                    return new ProductPageDto(items, nextCursor);
+                });
+    }
+
+    /**
+     * Emits every product as it is read; rows are only pulled from the database as fast as the
+     * subscriber requests them.
+     */
+    public Flux<ProductDto> streamAll() {
+        return databaseClient.sql(SELECT)
+                .map(ReactiveProductService::toDto)
+                .all();
+    }
+
+    /**
+     * Same semantics as {@link ProductService#search}: indexes first, a LIKE query until they
+     * are ready.
+     */
+    public Mono<List<ProductDto>> search(String nameOrDescription, BigDecimal minPrice, BigDecimal maxPrice) {
+        boolean textFilter = nameOrDescription != null;
+        if ((textFilter && (!productTextIndex.isReady() || ProductTextIndex.tokenize(nameOrDescription).isEmpty()))
+                || !productPriceIndex.isReady()) {
+            return searchByQuery(nameOrDescription, minPrice, maxPrice).collectList();
+        }
+
+        List<String> ids = productSearchCache.ids(nameOrDescription, minPrice, maxPrice, () -> {
+            if (!textFilter) {
+                return productPriceIndex.range(minPrice, maxPrice);
+            }
+            List<String> matches = productTextIndex.search(nameOrDescription);
+            if (minPrice != null || maxPrice != null) {
+                matches.removeIf(id -> !productPriceIndex.contains(id, minPrice, maxPrice));
+            }
+            return matches;
+        });
+        return findDtosByIdInOrder(ids);
+    }
+
+    /**
+     * Same contract as {@link ProductService#findAllById(List)}, loading every id in chunked
+     * {@code IN} queries.
+     */
+    public Mono<ProductLookupDto> findAllById(List<String> ids) {
+        if (ids.size() > ProductService.MAX_LOOKUP_SIZE) {
+            return Mono.error(new FormatErrorException(
+                    "A lookup accepts at most " + ProductService.MAX_LOOKUP_SIZE + " ids"));
+        }
+        Set<Long> unique = new LinkedHashSet<>();
+        for (String id : ids) {
+            Long productId = ProductIdGenerator.parse(id);
+            if (productId != null && productIdFilter.mightContain(productId)) {
+                unique.add(productId);
+            }
+        }
+        List<Long> productIds = new ArrayList<>(unique);
+
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < productIds.size(); from += ID_CHUNK_SIZE) {
+            chunks.add(productIds.subList(from, Math.min(from + ID_CHUNK_SIZE, productIds.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .concatMap(chunk -> databaseClient.sql(SELECT + " WHERE id IN (:ids)")
+                        .bind("ids", chunk)
+                        .map(ReactiveProductService::toDto)
+                        .all())
+                .collectMap(product -> ProductIdGenerator.parse(product.getId()))
+                .map(found -> {
+                    List<ProductLookupItemDto> items = new ArrayList<>(ids.size());
+                    for (int i = 0; i < ids.size(); i++) {
+                        Long productId = ProductIdGenerator.parse(ids.get(i));
+                        items.add(new ProductLookupItemDto(i, ids.get(i),
+                                productId == null ? null : found.get(productId)));
+                    }
+                    return new ProductLookupDto(items);
+                });
+    }
+
+    private Flux<ProductDto> searchByQuery(String nameOrDescription, BigDecimal minPrice, BigDecimal maxPrice) {
+        String pattern = ProductSpec.likeLongestWord(nameOrDescription);
+        List<String> conditions = new ArrayList<>();
+        if (pattern != null) {
+            conditions.add("(LOWER(name) LIKE :pattern OR LOWER(description) LIKE :pattern)");
+        }
+        if (minPrice != null) {
+            conditions.add("price >= :min_price");
+        }
+        if (maxPrice != null) {
+            conditions.add("price <= :max_price");
+        }
+
+        String sql = conditions.isEmpty() ? SELECT : SELECT + " WHERE " + String.join(" AND ", conditions);
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql);
+        if (pattern != null) {
+            spec = spec.bind("pattern", pattern);
+        }
+        if (minPrice != null) {
+            spec = spec.bind("min_price", minPrice);
+        }
+        if (maxPrice != null) {
+            spec = spec.bind("max_price", maxPrice);
+        }
+        return spec.map(ReactiveProductService::toDto)
+                .all()
+                .filter(product -> ProductSpec.matchesNameOrDescription(product, nameOrDescription));
+    }
+
+    private Mono<List<ProductDto>> findDtosByIdInOrder(List<String> ids) {
+        Map<String, Integer> position = new HashMap<>();
+        List<Long> productIds = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            position.put(ids.get(i), i);
+            productIds.add(ProductIdGenerator.parse(ids.get(i)));
+        }
+
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < productIds.size(); from += ID_CHUNK_SIZE) {
+            chunks.add(productIds.subList(from, Math.min(from + ID_CHUNK_SIZE, productIds.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .concatMap(chunk -> databaseClient.sql(SELECT + " WHERE id IN (:ids)")
+                        .bind("ids", chunk)
+                        .map(ReactiveProductService::toDto)
+                        .all())
+                .collectSortedList(Comparator.comparing(product -> position.get(product.getId())));
+    }
+
+    private static ProductDto toDto(Row row) {
+        return new ProductDto(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("description", String.class),
+                row.get("price", BigDecimal.class),
+                row.get("version", Long.class));
+    }
+}
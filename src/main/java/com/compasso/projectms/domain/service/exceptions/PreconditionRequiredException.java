@@ -0,0 +1,9 @@
+package com.compasso.projectms.domain.service.exceptions;
+
+public class PreconditionRequiredException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public PreconditionRequiredException(String message) {
+        super (message);
+    }
+}
@@ -1,9 +1,13 @@
 package com.compasso.projectms.domain.service.exceptions;
 
+/**
+ * Thrown for ids that do not exist, which clients probe often; it carries no stack trace, as
+ * it is always answered with a 404 and never logged.
+ */
 public class ProductNotFoundException extends RuntimeException {
 	private static final long serialVersionUID = 1L;
 
 	public ProductNotFoundException(String message) {
-        super (message);
+        super (message, null, false, false);
     }
 }
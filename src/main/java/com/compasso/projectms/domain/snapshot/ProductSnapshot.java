@@ -0,0 +1,193 @@
+package com.compasso.projectms.domain.snapshot;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.entity.Product;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Immutable, memory-mapped copy of the catalog written by {@link ProductSnapshotWriter}.
+ *
+ * <p>Layout: a {@value #HEADER_SIZE}-byte header, then one fixed-width record per product in
+ * ascending id order, then the string table. Records are {@code id, version, unscaled price,
+ * price scale, name, description}, the last two being offsets into the string table, where
+ * each distinct string is stored once as a length-prefixed UTF-8 run. Since records are sorted
+ * and fixed-width, the record array is its own id index: a lookup is a binary search over the
+ * mapped file. Nothing but the returned dto is allocated on the heap, and the file can be
+ * shared by every process on the host through the page cache.
+ *
+ * <p>A mapped file is limited to 2 GB. Instances are thread-safe; the mapping is released when
+ * the snapshot becomes unreachable.
+ */
+public final class ProductSnapshot {
+
+    static final int MAGIC = 0x50534E50; // "PSNP"
+
+    static final int FORMAT_VERSION = 1;
+
+    static final int HEADER_SIZE = 64;
+
+    static final int RECORD_SIZE = 40;
+
+    static final int NULL_REF = -1;
+
+    static final int NULL_SCALE = Integer.MIN_VALUE;
+
+    private final Path file;
+
+    private final ByteBuffer buffer;
+
+    private final int count;
+
+    private final long sequence;
+
+    private final Instant createdAt;
+
+    private final int strings;
+
+    private ProductSnapshot(Path file, ByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalStateException(file + " is not a product snapshot");
+        }
+        long products = buffer.getLong(8);
+        long stringsOffset = buffer.getLong(32);
+        if (stringsOffset != HEADER_SIZE + products * RECORD_SIZE || stringsOffset > buffer.capacity()) {
+            throw new IllegalStateException(file + " is truncated");
+        }
+        this.count = (int) products;
+        this.sequence = buffer.getLong(16);
+        this.createdAt = Instant.ofEpochMilli(buffer.getLong(24));
+        this.strings = (int) stringsOffset;
+    }
+
+    public static ProductSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2 GB");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ProductSnapshot(file, buffer);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long bytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Last change feed sequence already contained in the snapshot.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public ProductDto find(long id) {
+        int index = indexAfter(id - 1);
+        return index < count && idAt(index) == id ? dtoAt(index) : null;
+    }
+
+    /**
+     * Up to {@code limit} products with an id above {@code after} ({@code null} for the first page).
+     */
+    public List<ProductDto> page(Long after, int limit) {
+        List<ProductDto> items = new ArrayList<>(limit);
+        for (int index = after == null ? 0 : indexAfter(after); index < count && items.size() < limit; index++) {
+            items.add(dtoAt(index));
+        }
+        return items;
+    }
+
+    public List<ProductDto> filter(Predicate<ProductDto> predicate) {
+        List<ProductDto> items = new ArrayList<>();
+        for (int index = 0; index < count; index++) {
+            ProductDto dto = dtoAt(index);
+            if (predicate.test(dto)) {
+                items.add(dto);
+            }
+        }
+        return items;
+    }
+
+    public void forEach(Consumer<Product> consumer) {
+        for (int index = 0; index < count; index++) {
+            ProductDto dto = dtoAt(index);
+            Product product = new Product(dto.getId(), dto.getName(), dto.getDescription(), dto.getPrice());
+            product.setVersion(dto.getVersion());
+            consumer.accept(product);
+        }
+    }
+
+    /**
+     * Index of the first record whose id is greater than {@code id}.
+     */
+    private int indexAfter(long id) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (idAt(middle) <= id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long idAt(int index) {
+        return buffer.getLong(HEADER_SIZE + index * RECORD_SIZE);
+    }
+
+    private ProductDto dtoAt(int index) {
+        int record = HEADER_SIZE + index * RECORD_SIZE;
+        int scale = buffer.getInt(record + 24);
+        BigDecimal price = scale == NULL_SCALE ? null
+                : new BigDecimal(BigInteger.valueOf(buffer.getLong(record + 16)), scale);
+        return new ProductDto(buffer.getLong(record), string(buffer.getInt(record + 28)),
+                string(buffer.getInt(record + 32)), price, buffer.getLong(record + 8));
+    }
+
+    private String string(int ref) {
+        if (ref == NULL_REF) {
+            return null;
+        }
+        int position = strings + ref;
+        byte[] bytes = new byte[buffer.getInt(position)];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + Integer.BYTES);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return file + " (" + count + " products through sequence " + sequence + ", " + buffer.capacity() + " bytes)";
+    }
+}
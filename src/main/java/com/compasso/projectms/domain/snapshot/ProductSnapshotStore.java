@@ -0,0 +1,181 @@
+package com.compasso.projectms.domain.snapshot;
+
+import com.compasso.projectms.domain.cache.ProductSearchCache;
+import com.compasso.projectms.domain.index.AbstractProductIndex;
+import com.compasso.projectms.domain.repository.ProductStreamRepository;
+import com.compasso.projectms.domain.service.ProductChangeFeed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes and serves {@link ProductSnapshot} files at {@code product.snapshot.file}.
+ *
+ * <p>Any instance with database access can {@link #publish()} a snapshot: it is written next to
+ * the target and renamed over it, so readers only ever open complete files. Instances started
+ * with {@code product.snapshot.serve=true} (the {@code replica} profile) map the file, check it
+ * for a new version every {@code product.snapshot.refresh-interval}, and swap to the new one
+ * atomically; reads still holding the previous snapshot finish on it. Their search indexes are
+ * built from the snapshot instead of the database.
+ */
+@Component
+public class ProductSnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSnapshotStore.class);
+
+    private final ProductStreamRepository productStreamRepository;
+
+    private final ProductChangeFeed productChangeFeed;
+
+    private final List<AbstractProductIndex> indexes;
+
+    private final ProductSearchCache productSearchCache;
+
+    private final Path file;
+
+    private final boolean serve;
+
+    private final Duration refreshInterval;
+
+    private final AtomicReference<ProductSnapshot> current = new AtomicReference<>();
+
+    private Object loadedVersion;
+
+    private ScheduledExecutorService refresher;
+
+    @Autowired
+    public ProductSnapshotStore(ProductStreamRepository productStreamRepository, ProductChangeFeed productChangeFeed,
+                                List<AbstractProductIndex> indexes, ProductSearchCache productSearchCache,
+                                @Value("${product.snapshot.file:}") String file,
+                                @Value("${product.snapshot.serve:false}") boolean serve,
+                                @Value("${product.snapshot.refresh-interval:10s}") Duration refreshInterval) {
+        this.productStreamRepository = productStreamRepository;
+        this.productChangeFeed = productChangeFeed;
+        this.indexes = indexes;
+        this.productSearchCache = productSearchCache;
+        this.file = file.isEmpty() ? null : Paths.get(file).toAbsolutePath();
+        this.serve = serve;
+        this.refreshInterval = refreshInterval;
+        if (serve && this.file == null) {
+            throw new IllegalStateException("product.snapshot.serve needs product.snapshot.file");
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!serve) {
+            return;
+        }
+        indexes.forEach(index -> index.useSource(consumer -> {
+            ProductSnapshot snapshot = current.get();
+            if (snapshot != null) {
+                snapshot.forEach(consumer);
+            }
+        }));
+        refresh();
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-snapshot-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, refreshInterval.toMillis(), refreshInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    /**
+     * The snapshot reads should be served from, or {@code null} when this instance reads the database.
+     */
+    public ProductSnapshot current() {
+        return serve ? current.get() : null;
+    }
+
+    /**
+     * Writes a snapshot of the product table and publishes it. The snapshot contains at least the
+     * changes up to the sequence it records, and possibly some later ones.
+     */
+    public synchronized ProductSnapshot publish() throws IOException {
+        if (file == null) {
+            throw new IllegalStateException("product.snapshot.file is not set");
+        }
+        long start = System.nanoTime();
+        long sequence = productChangeFeed.head();
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + "." + System.nanoTime() + ".tmp");
+        try {
+            try (ProductSnapshotWriter writer = new ProductSnapshotWriter(temp)) {
+                productStreamRepository.forEach(product -> {
+                    try {
+                        writer.add(product);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.finish(sequence);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        ProductSnapshot snapshot = ProductSnapshot.open(file);
+        log.info("Published product snapshot {} in {} ms", snapshot, (System.nanoTime() - start) / 1_000_000);
+        if (serve) {
+            refresh();
+        }
+        return snapshot;
+    }
+
+    synchronized void refresh() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            Object version = Arrays.asList(attributes.fileKey(), attributes.lastModifiedTime(), attributes.size());
+            if (version.equals(loadedVersion)) {
+                return;
+            }
+            ProductSnapshot snapshot = ProductSnapshot.open(file);
+            ProductSnapshot previous = current.getAndSet(snapshot);
+            loadedVersion = version;
+            log.info("Serving product snapshot {}", snapshot);
+            if (previous != null) {
+                indexes.forEach(AbstractProductIndex::rebuild);
+                productSearchCache.invalidateAll();
+            }
+        } catch (NoSuchFileException e) {
+            log.debug("No product snapshot at {} yet", file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load the product snapshot at {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.compasso.projectms.domain.snapshot;
+
+import com.compasso.projectms.domain.entity.Product;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.compasso.projectms.domain.snapshot.ProductSnapshot.*;
+
+/**
+ * Writes a {@link ProductSnapshot} file. Products must be added in ascending id order; records
+ * are streamed to the file as they come while the interned strings are kept in memory and
+ * appended by {@link #finish(long)}, which also writes the header. Not thread-safe.
+ */
+public class ProductSnapshotWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer records = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private final ByteArrayOutputStream strings = new ByteArrayOutputStream();
+
+    private final Map<String, Integer> interned = new HashMap<>();
+
+    private long count;
+
+    private Long lastId;
+
+    public ProductSnapshotWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        channel.position(HEADER_SIZE);
+    }
+
+    public void add(Product product) throws IOException {
+        long id = product.getId();
+        if (lastId != null && id <= lastId) {
+            throw new IllegalArgumentException("Products must come in ascending id order, got " + id + " after " + lastId);
+        }
+        BigDecimal price = product.getPrice();
+        if (price != null && price.unscaledValue().bitLength() >= Long.SIZE) {
+            throw new IllegalArgumentException("Price of product " + id + " does not fit the snapshot: " + price);
+        }
+        if (records.remaining() < RECORD_SIZE) {
+            flushRecords();
+        }
+        records.putLong(id)
+                .putLong(product.getVersion() == null ? 0 : product.getVersion())
+                .putLong(price == null ? 0 : price.unscaledValue().longValue())
+                .putInt(price == null ? NULL_SCALE : price.scale())
+                .putInt(intern(product.getName()))
+                .putInt(intern(product.getDescription()))
+                .putInt(0);
+        lastId = id;
+        count++;
+    }
+
+    /**
+     * Completes the file. {@code sequence} is the last change feed sequence the products include.
+     */
+    public void finish(long sequence) throws IOException {
+        flushRecords();
+        long stringsOffset = channel.position();
+        if (stringsOffset + strings.size() > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot would be larger than 2 GB");
+        }
+        write(ByteBuffer.wrap(strings.toByteArray()));
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putInt(FORMAT_VERSION)
+                .putLong(count)
+                .putLong(sequence)
+                .putLong(System.currentTimeMillis())
+                .putLong(stringsOffset);
+        header.clear();
+        channel.position(0);
+        write(header);
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int intern(String value) {
+        if (value == null) {
+            return NULL_REF;
+        }
+        return interned.computeIfAbsent(value, key -> {
+            int ref = strings.size();
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            strings.write(bytes.length >>> 24);
+            strings.write(bytes.length >>> 16);
+            strings.write(bytes.length >>> 8);
+            strings.write(bytes.length);
+            strings.writeBytes(bytes);
+            return ref;
+        });
+    }
+
+    private void flushRecords() throws IOException {
+        records.flip();
+        write(records);
+        records.clear();
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -1,6 +1,6 @@
-INSERT INTO product (name, description, price) VALUES ('The Lord of the Rings', 'Lorem ipsum dolor sit amet.', 90.5);
-INSERT INTO product (name, description, price) VALUES ('Smart TV', 'Lorem ipsum dolor sit amet.', 2190.0);
-INSERT INTO product (name, description, price) VALUES ('Macbook Pro', 'Lorem ipsum dolor sit amet.', 1250.0);
-INSERT INTO product (name, description, price) VALUES ('PC Gamer', 'Lorem ipsum dolor sit amet.', 1200.0);
-INSERT INTO product (name, description, price) VALUES ('Rails for Dummies', 'Lorem ipsum dolor sit amet.', 100.99);
-INSERT INTO product (name, description, price) VALUES ('PC Gamer Ex', 'Lorem ipsum dolor sit amet.', 1350.0);
\ No newline at end of file
+INSERT INTO product (id, name, description, price, version) VALUES (1, 'The Lord of the Rings', 'Lorem ipsum dolor sit amet.', 90.5, 0);
+INSERT INTO product (id, name, description, price, version) VALUES (2, 'Smart TV', 'Lorem ipsum dolor sit amet.', 2190.0, 0);
+INSERT INTO product (id, name, description, price, version) VALUES (3, 'Macbook Pro', 'Lorem ipsum dolor sit amet.', 1250.0, 0);
+INSERT INTO product (id, name, description, price, version) VALUES (4, 'PC Gamer', 'Lorem ipsum dolor sit amet.', 1200.0, 0);
+INSERT INTO product (id, name, description, price, version) VALUES (5, 'Rails for Dummies', 'Lorem ipsum dolor sit amet.', 100.99, 0);
+INSERT INTO product (id, name, description, price, version) VALUES (6, 'PC Gamer Ex', 'Lorem ipsum dolor sit amet.', 1350.0, 0);
\ No newline at end of file
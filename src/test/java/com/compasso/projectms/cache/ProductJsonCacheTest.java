@@ -0,0 +1,80 @@
+package com.compasso.projectms.cache;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.repository.ProductRepository;
+import com.compasso.projectms.domain.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ProductJsonCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    private ProductDto insert(String description) {
+        return productService.insert(new ProductDto(null, "Smart TV", description, BigDecimal.valueOf(2190)));
+    }
+
+    @Test
+    @DisplayName("Must refresh and drop products first read by a zero-padded id")
+    public void paddedId() throws Exception {
+        ProductDto product = insert("4K");
+        String padded = "/products/0" + product.getId();
+        mockMvc.perform(get(padded)).andExpect(status().isOk()).andExpect(jsonPath("$.name").value("Smart TV"));
+
+        productService.update(product.getId(), new ProductDto(null, "OLED TV", "4K", BigDecimal.valueOf(2190)));
+        mockMvc.perform(get(padded)).andExpect(status().isOk()).andExpect(jsonPath("$.name").value("OLED TV"));
+
+        productService.delete(product.getId());
+        mockMvc.perform(get(padded)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Must tag the gzip encoding apart and accept either tag in If-None-Match")
+    public void gzipETag() throws Exception {
+        ProductDto product = insert(new String(new char[200]).replace('\0', 'x'));
+        String uri = "/products/" + product.getId();
+        String identity = "\"" + product.getVersion() + "\"";
+        String gzip = "\"" + product.getVersion() + "-gzip\"";
+
+        mockMvc.perform(get(uri)).andExpect(header().string(HttpHeaders.ETAG, identity));
+        mockMvc.perform(get(uri).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, gzip));
+
+        mockMvc.perform(get(uri).header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, identity))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, gzip));
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, "W/" + gzip))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, identity));
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, "\"" + (product.getVersion() + 1) + "\""))
+                .andExpect(status().isOk());
+    }
+}
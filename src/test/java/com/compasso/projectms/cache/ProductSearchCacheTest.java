@@ -0,0 +1,65 @@
+package com.compasso.projectms.cache;
+
+import com.compasso.projectms.domain.cache.ProductSearchCache;
+import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductSearchCacheTest {
+
+    private final ProductSearchCache cache = new ProductSearchCache(100, Duration.ofMinutes(10), Duration.ofSeconds(5));
+
+    private final AtomicInteger searches = new AtomicInteger();
+
+    private List<String> search(String q, BigDecimal min, BigDecimal max) {
+        return cache.ids(q, min, max, () -> {
+            searches.incrementAndGet();
+            return new ArrayList<>(Arrays.asList("3", "1"));
+        });
+    }
+
+    private static ProductChangedEvent updated(String id, String name, String price) {
+        return ProductChangedEvent.updated(new Product(id, name, "Plain", new BigDecimal(price)));
+    }
+
+    @Test
+    @DisplayName("Must answer equivalent queries from one entry, in result order")
+    public void hit() {
+        assertEquals(Arrays.asList("3", "1"), search("Smart TV", BigDecimal.valueOf(100), null));
+        assertEquals(Arrays.asList("3", "1"), search("smart tv", new BigDecimal("100.00"), null));
+
+        assertEquals(1, searches.get());
+        assertEquals(1, cache.stats().hitCount());
+    }
+
+    @Test
+    @DisplayName("Must only drop the results a write can affect")
+    public void invalidation() {
+        search("smart", null, BigDecimal.valueOf(1000));
+
+        cache.onProductChanged(updated("7", "Boot", "10"));
+        cache.onProductChanged(updated("8", "Smart watch", "2000"));
+        search("smart", null, BigDecimal.valueOf(1000));
+        assertEquals(1, searches.get());
+        assertEquals(0, cache.invalidationCount());
+
+        cache.onProductChanged(updated("9", "Smart watch", "900"));
+        search("smart", null, BigDecimal.valueOf(1000));
+        assertEquals(2, searches.get());
+
+        cache.onProductChanged(ProductChangedEvent.deleted("1"));
+        search("smart", null, BigDecimal.valueOf(1000));
+        assertEquals(3, searches.get());
+        assertEquals(2, cache.invalidationCount());
+    }
+}
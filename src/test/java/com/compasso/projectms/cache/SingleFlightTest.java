@@ -0,0 +1,101 @@
+package com.compasso.projectms.cache;
+
+import com.compasso.projectms.domain.cache.SingleFlight;
+import com.compasso.projectms.domain.service.exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    private String blockingLoad() {
+        loads.incrementAndGet();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "value";
+    }
+
+    @Test
+    @DisplayName("Must share one load between concurrent callers of a key and start anew once forgotten")
+    public void coalesce() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(5), UnaryOperator.identity());
+        Future<String> leader = executor.submit(() -> flight.load("a", this::blockingLoad));
+        while (loads.get() == 0) {
+            Thread.sleep(1);
+        }
+        Future<String> follower = executor.submit(() -> flight.load("a", this::blockingLoad));
+        while (flight.coalescedCount() == 0) {
+            Thread.sleep(1);
+        }
+
+        flight.forget("a");
+        Future<String> afterForget = executor.submit(() -> flight.load("a", this::blockingLoad));
+        while (loads.get() < 2) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("value", follower.get(5, TimeUnit.SECONDS));
+        assertEquals("value", afterForget.get(5, TimeUnit.SECONDS));
+        assertEquals(2, flight.loadCount());
+        assertEquals(1, flight.coalescedCount());
+    }
+
+    @Test
+    @DisplayName("Must hand the load's exception to waiters and fail waiters that time out")
+    public void failures() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofMillis(50), UnaryOperator.identity());
+        executor.submit(() -> flight.load("slow", this::blockingLoad));
+        while (loads.get() == 0) {
+            Thread.sleep(1);
+        }
+        assertThrows(ServiceUnavailableException.class, () -> flight.load("slow", this::blockingLoad));
+
+        SingleFlight<String, String> failing = new SingleFlight<>(Duration.ofSeconds(5), UnaryOperator.identity());
+        Future<?> leader = executor.submit(() -> failing.load("broken", () -> {
+            blockingLoad();
+            throw new IllegalStateException("broken");
+        }));
+        while (loads.get() < 2) {
+            Thread.sleep(1);
+        }
+        Future<String> follower = executor.submit(() -> failing.load("broken", () -> "unused"));
+        while (failing.coalescedCount() == 0) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertEquals("broken", e.getCause().getMessage());
+        assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,136 @@
+package com.compasso.projectms.config;
+
+import com.compasso.projectms.config.ConcurrencyLimitFilter.Partition;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    @DisplayName("Must reject beyond the limit, grow while latency holds and shrink once requests queue")
+    public void adapt() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 2, 100, 1000);
+        AdaptiveConcurrencyLimit.Permit[] permits = new AdaptiveConcurrencyLimit.Permit[4];
+        for (int i = 0; i < permits.length; i++) {
+            permits[i] = limit.tryAcquire();
+            assertNotNull(permits[i]);
+        }
+        assertNull(limit.tryAcquire());
+        assertEquals(1, limit.getRejectedCount());
+        for (AdaptiveConcurrencyLimit.Permit permit : permits) {
+            permit.ignore();
+        }
+        assertEquals(0, limit.getInFlight());
+
+        limit.update(10 * MILLIS, 4, false);
+        for (int i = 0; i < 50; i++) {
+            limit.update(10 * MILLIS, limit.getLimit(), false);
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 4, "limit " + grown);
+
+        for (int i = 0; i < 50; i++) {
+            limit.update(100 * MILLIS, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() < grown, "limit " + limit.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            limit.update(100 * MILLIS, limit.getLimit(), true);
+        }
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    @DisplayName("Must leave the limit alone while it is mostly unused")
+    public void appLimited() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 2, 100, 1000);
+        limit.update(10 * MILLIS, 1, false);
+        for (int i = 0; i < 50; i++) {
+            limit.update(10 * MILLIS, 1, false);
+        }
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    @DisplayName("Must not let a flood of fast 404s, 304s and cache hits shed the reads that reach the database")
+    public void unsampled() throws Exception {
+        Map<Partition, AdaptiveConcurrencyLimit> limits = new EnumMap<>(Partition.class);
+        limits.put(Partition.FIND, new AdaptiveConcurrencyLimit(20, 2, 100, 1000));
+        AtomicLong statements = new AtomicLong();
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limits, new ObjectMapper(), 1, statements::get);
+        AdaptiveConcurrencyLimit limit = filter.limit(Partition.FIND);
+        List<AdaptiveConcurrencyLimit.Permit> busy = new ArrayList<>();
+
+        for (int i = 0; i < 300; i++) {
+            int status = i % 3 == 0 ? 404 : i % 3 == 1 ? 304 : 200;
+            occupy(limit, busy);
+            // answered from memory: no statement runs
+            find(filter, (request, response) -> ((HttpServletResponse) response).setStatus(status));
+        }
+        for (int i = 0; i < 20; i++) {
+            occupy(limit, busy);
+            find(filter, (request, response) -> {
+                statements.incrementAndGet();
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        busy.forEach(AdaptiveConcurrencyLimit.Permit::ignore);
+
+        assertTrue(limit.getLimit() >= 20, "limit " + limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    /**
+     * Keeps three quarters of the limit in use, so every sample counts.
+     */
+    private static void occupy(AdaptiveConcurrencyLimit limit, List<AdaptiveConcurrencyLimit.Permit> busy) {
+        while (busy.size() < limit.getLimit() * 3 / 4) {
+            busy.add(limit.tryAcquire());
+        }
+        while (busy.size() > limit.getLimit() * 3 / 4) {
+            busy.remove(busy.size() - 1).ignore();
+        }
+    }
+
+    private static void find(ConcurrencyLimitFilter filter, FilterChain chain) throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/products/42"), new MockHttpServletResponse(), chain);
+    }
+
+    @Test
+    @DisplayName("Must split product requests into point reads, bulk reads and writes")
+    public void partitions() {
+        assertEquals(Partition.FIND, ConcurrencyLimitFilter.partition("GET", "/products/42"));
+        assertEquals(Partition.SEARCH, ConcurrencyLimitFilter.partition("GET", "/products"));
+        assertEquals(Partition.SEARCH, ConcurrencyLimitFilter.partition("GET", "/products/search"));
+        assertEquals(Partition.SEARCH, ConcurrencyLimitFilter.partition("POST", "/products/lookup"));
+        assertEquals(Partition.WRITE, ConcurrencyLimitFilter.partition("POST", "/products"));
+        assertEquals(Partition.WRITE, ConcurrencyLimitFilter.partition("PUT", "/products/batch"));
+        assertEquals(Partition.WRITE, ConcurrencyLimitFilter.partition("PUT", "/products/42"));
+        assertEquals(Partition.WRITE, ConcurrencyLimitFilter.partition("DELETE", "/products/42"));
+        assertNull(ConcurrencyLimitFilter.partition("GET", "/products/changes"));
+        assertNull(ConcurrencyLimitFilter.partition("GET", "/products/changes/stream"));
+        assertNull(ConcurrencyLimitFilter.partition("GET", "/products/export"));
+        assertNull(ConcurrencyLimitFilter.partition("POST", "/products/import"));
+        assertNull(ConcurrencyLimitFilter.partition("POST", "/products/snapshot"));
+        assertNull(ConcurrencyLimitFilter.partition("GET", "/productsx"));
+    }
+}
@@ -0,0 +1,44 @@
+package com.compasso.projectms.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimitedDataSourceTest {
+
+    private ConcurrencyLimitedDataSource dataSource(int permits) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:limited");
+        return new ConcurrencyLimitedDataSource(h2, permits, Duration.ofMillis(50));
+    }
+
+    @Test
+    @DisplayName("Must time out when every permit is checked out")
+    public void timeout() throws Exception {
+        ConcurrencyLimitedDataSource dataSource = dataSource(1);
+
+        try (Connection connection = dataSource.getConnection()) {
+            assertFalse(connection.isClosed());
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        }
+        assertEquals(1, dataSource.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Must give the permit back exactly once per connection")
+    public void releaseOnce() throws Exception {
+        ConcurrencyLimitedDataSource dataSource = dataSource(2);
+
+        Connection connection = dataSource.getConnection();
+        assertEquals(1, dataSource.availablePermits());
+        connection.close();
+        connection.close();
+        assertEquals(2, dataSource.availablePermits());
+    }
+}
@@ -0,0 +1,78 @@
+package com.compasso.projectms.config;
+
+import com.compasso.projectms.domain.repository.QueryOrigin;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstrumentedDataSourceTest {
+
+    private QueryStatistics queryStatistics;
+
+    private InstrumentedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        queryStatistics = new QueryStatistics(new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), Duration.ZERO, Duration.ofMinutes(1));
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:instrumented;DB_CLOSE_DELAY=-1");
+        dataSource = new InstrumentedDataSource(h2, queryStatistics);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS item (id BIGINT PRIMARY KEY)");
+            statement.executeUpdate("MERGE INTO item KEY (id) VALUES (1), (2), (3)");
+        }
+        queryStatistics.reset();
+    }
+
+    @Test
+    @DisplayName("Must collapse whitespace, compared numbers and IN lists into one shape")
+    public void normalize() {
+        assertEquals("select * from item where id in (?, ...) and id > ? and item0_.price>=?",
+                QueryStatistics.normalize("select *\n  from item where id in (?, ?,?) and id > ? and item0_.price>=1.5"));
+    }
+
+    @Test
+    @DisplayName("Must count executions and rows per shape and origin, and explain slow ones")
+    public void record() throws Exception {
+        long executions = queryStatistics.currentThreadExecutions();
+        String previous = QueryOrigin.enter("ItemRepository.findAll");
+        try (Connection connection = dataSource.getConnection()) {
+            for (int i = 0; i < 2; i++) {
+                try (PreparedStatement statement = connection.prepareStatement("select id from item where id in (?, ?)")) {
+                    statement.setLong(1, 1);
+                    statement.setLong(2, 2 + i);
+                    try (ResultSet result = statement.executeQuery()) {
+                        while (result.next()) {
+                            result.getLong(1);
+                        }
+                    }
+                }
+            }
+        } finally {
+            QueryOrigin.restore(previous);
+        }
+
+        List<QueryStatistics.Shape> shapes = queryStatistics.shapes();
+        assertEquals(1, shapes.size());
+        QueryStatistics.Shape shape = shapes.get(0);
+        assertEquals("ItemRepository.findAll", shape.getOrigin());
+        assertEquals("select id from item where id in (?, ...)", shape.getSql());
+        assertEquals(2, shape.getCount());
+        assertEquals(4, shape.getRows());
+        assertEquals(2, shape.getSlowCount());
+        assertNotNull(shape.getLastPlan());
+        assertEquals(executions + 2, queryStatistics.currentThreadExecutions());
+    }
+}
@@ -0,0 +1,85 @@
+package com.compasso.projectms.config;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.repository.ProductRepository;
+import com.compasso.projectms.domain.service.ProductChangeFeed;
+import com.compasso.projectms.domain.service.ProductService;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replicated;DB_CLOSE_DELAY=-1",
+        "product.replicas.urls=jdbc:h2:mem:replicated_lagging;DB_CLOSE_DELAY=-1",
+        "product.replicas.max-lag=1h",
+        "product.replicas.lag-check-interval=1h"})
+public class ReadReplicaConfigTest {
+
+    private final JdbcTemplate replica = replica();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductChangeFeed productChangeFeed;
+
+    private static JdbcTemplate replica() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:replicated_lagging;DB_CLOSE_DELAY=-1");
+        h2.setUser("sa");
+        return new JdbcTemplate(h2);
+    }
+
+    @BeforeEach
+    void setUp() {
+        replica.execute("CREATE TABLE IF NOT EXISTS product (id BIGINT PRIMARY KEY, name VARCHAR(255), "
+                + "description VARCHAR(255), price DECIMAL(19, 2), version BIGINT)");
+        replica.execute("CREATE TABLE IF NOT EXISTS product_change (sequence BIGINT PRIMARY KEY, changed_at TIMESTAMP)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        replica.execute("DELETE FROM product");
+        replica.execute("DELETE FROM product_change");
+    }
+
+    @Test
+    @DisplayName("Must not cache the row a lagging replica still has from before a write")
+    public void cacheFillReadsPrimary() throws Exception {
+        ReadWriteRoutingDataSource routing = dataSource.unwrap(ReadWriteRoutingDataSource.class);
+        ProductDto product = productService.insert(new ProductDto("Smart TV", "4K", BigDecimal.valueOf(2190)));
+        replica.update("INSERT INTO product VALUES (?, ?, ?, ?, ?)", Long.valueOf(product.getId()),
+                product.getName(), product.getDescription(), product.getPrice(), product.getVersion());
+        replica.update("INSERT INTO product_change VALUES (?, ?)", productChangeFeed.head(),
+                Timestamp.from(Instant.now()));
+        assertEquals("Smart TV", productService.findById(product.getId()).getName());
+
+        // the replica does not get the update, but stays within the allowed lag
+        productService.update(product.getId(), new ProductDto("OLED TV", "4K", BigDecimal.valueOf(2190)));
+        routing.checkReplicas();
+        assertTrue(routing.getReplicas().get(0).isEligible());
+        assertEquals("Smart TV", productService.findPage(null, 10).getItems().get(0).getName(),
+                "pages are read from the replica");
+
+        assertEquals("OLED TV", productService.findById(product.getId()).getName());
+    }
+}
@@ -0,0 +1,145 @@
+package com.compasso.projectms.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    private final DataSource primary = h2("rw_primary");
+
+    private final DataSource current = h2("rw_current");
+
+    private final DataSource lagging = h2("rw_lagging");
+
+    private ReadWriteRoutingDataSource routing;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate reads;
+
+    private TransactionTemplate writes;
+
+    private static DataSource h2(String name) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate template = new JdbcTemplate(h2);
+        template.execute("DROP TABLE IF EXISTS product_change");
+        template.execute("CREATE TABLE product_change (sequence BIGINT PRIMARY KEY, changed_at TIMESTAMP NOT NULL)");
+        return h2;
+    }
+
+    private static void change(DataSource dataSource, long sequence, Duration age) {
+        new JdbcTemplate(dataSource).update("INSERT INTO product_change (sequence, changed_at) VALUES (?, ?)",
+                sequence, Timestamp.from(NOW.minus(age)));
+    }
+
+    private void route(Map<String, DataSource> replicas) {
+        routing = new ReadWriteRoutingDataSource(primary, replicas, Duration.ofSeconds(5),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        reads = new TransactionTemplate(transactionManager);
+        reads.setReadOnly(true);
+        writes = new TransactionTemplate(transactionManager);
+    }
+
+    private String read() {
+        return reads.execute(status -> jdbcTemplate.queryForObject("CALL DATABASE()", String.class));
+    }
+
+    private String write() {
+        return writes.execute(status -> jdbcTemplate.queryForObject("CALL DATABASE()", String.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadWriteRoutingDataSource.end();
+    }
+
+    @Test
+    @DisplayName("Must send read-only transactions to replicas within the allowed lag and writes to the primary")
+    public void lag() {
+        for (long sequence = 1; sequence <= 3; sequence++) {
+            change(primary, sequence, Duration.ofMinutes(4 - sequence));
+            change(current, sequence, Duration.ofMinutes(4 - sequence));
+        }
+        change(lagging, 1, Duration.ofMinutes(3));
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("current", current);
+        replicas.put("lagging", lagging);
+        replicas.put("broken", new JdbcDataSource());
+        route(replicas);
+
+        assertEquals("RW_PRIMARY", read(), "replicas are not eligible before their first check");
+        routing.checkReplicas();
+        for (int i = 0; i < 6; i++) {
+            assertEquals("RW_CURRENT", read());
+        }
+        assertEquals("RW_PRIMARY", write());
+
+        ReadWriteRoutingDataSource.Replica laggingReplica = routing.getReplicas().get(1);
+        assertEquals(1, laggingReplica.getAppliedSequence());
+        assertEquals(Duration.ofMinutes(2), laggingReplica.getLag());
+        assertFalse(laggingReplica.isEligible());
+        assertFalse(routing.getReplicas().get(2).isEligible());
+        assertEquals(6, routing.getReplicas().get(0).getConnectionCount());
+
+        change(lagging, 2, Duration.ofMinutes(2));
+        change(lagging, 3, Duration.ofMinutes(1));
+        routing.checkReplicas();
+        assertTrue(laggingReplica.isEligible());
+        assertEquals(Duration.ZERO, laggingReplica.getLag());
+        assertNotEquals(read(), read(), "eligible replicas take turns");
+    }
+
+    @Test
+    @DisplayName("Must keep reads on the primary until the replicas applied the client's last write")
+    public void readYourWrites() {
+        change(primary, 1, Duration.ofSeconds(2));
+        change(current, 1, Duration.ofSeconds(2));
+        change(primary, 2, Duration.ofSeconds(1));
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("current", current);
+        route(replicas);
+        routing.checkReplicas();
+        assertEquals(Duration.ofSeconds(1), routing.getReplicas().get(0).getLag());
+
+        ReadWriteRoutingDataSource.begin(1);
+        assertEquals("RW_CURRENT", read());
+        ReadWriteRoutingDataSource.end();
+
+        ReadWriteRoutingDataSource.begin(2);
+        assertEquals("RW_PRIMARY", read());
+        assertFalse(ReadWriteRoutingDataSource.wrote());
+        ReadWriteRoutingDataSource.end();
+
+        ReadWriteRoutingDataSource.begin(0);
+        assertEquals("RW_CURRENT", read());
+        assertEquals("RW_PRIMARY", write());
+        assertTrue(ReadWriteRoutingDataSource.wrote());
+        assertEquals("RW_PRIMARY", read(), "reads after a write in the same request stay on the primary");
+        ReadWriteRoutingDataSource.end();
+
+        assertEquals("RW_CURRENT", read());
+    }
+}
@@ -0,0 +1,45 @@
+package com.compasso.projectms.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.servlet.FilterChain;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadYourWritesFilterTest {
+
+    @Test
+    @DisplayName("Must hand back the sequence of the request's own write when the feed head is behind it")
+    public void ownSequence() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:ryw_primary;DB_CLOSE_DELAY=-1");
+        DataSource dataSource = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(h2, Collections.emptyMap(), Duration.ofSeconds(5)));
+        TransactionTemplate writes = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        FilterChain write = (request, response) -> {
+            writes.executeWithoutResult(status -> new JdbcTemplate(dataSource).execute("CALL 1"));
+            response.getWriter().write("{}");
+        };
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new ReadYourWritesFilter(() -> 41, () -> 42, Duration.ofMinutes(1))
+                .doFilter(new MockHttpServletRequest("PUT", "/products/1"), response, write);
+        assertEquals("42", response.getHeader(ReadYourWritesFilter.HEADER));
+
+        response = new MockHttpServletResponse();
+        new ReadYourWritesFilter(() -> 43, () -> 42, Duration.ofMinutes(1))
+                .doFilter(new MockHttpServletRequest("PUT", "/products/1"), response, write);
+        assertEquals("43", response.getHeader(ReadYourWritesFilter.HEADER));
+    }
+}
@@ -0,0 +1,50 @@
+package com.compasso.projectms.id;
+
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductIdGeneratorTest {
+
+    @AfterEach
+    void tearDown() {
+        ProductIdGenerator.setNode(0);
+    }
+
+    @Test
+    @DisplayName("Must hand out strictly increasing ids")
+    public void increasing() {
+        long previous = ProductIdGenerator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long id = ProductIdGenerator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    @DisplayName("Must carry the node id and the creation time")
+    public void layout() {
+        ProductIdGenerator.setNode(ProductIdGenerator.MAX_NODE);
+        long before = System.currentTimeMillis();
+        long id = ProductIdGenerator.nextId();
+
+        assertEquals(ProductIdGenerator.MAX_NODE, (id >>> 12) & ProductIdGenerator.MAX_NODE);
+        assertTrue((id >>> 22) + ProductIdGenerator.EPOCH >= before);
+        assertThrows(IllegalArgumentException.class, () -> ProductIdGenerator.setNode(ProductIdGenerator.MAX_NODE + 1));
+    }
+
+    @Test
+    @DisplayName("Must only parse decimal ids that fit in a long")
+    public void parse() {
+        assertEquals(42L, ProductIdGenerator.parse("42"));
+        assertEquals("42", ProductIdGenerator.format(42L));
+        assertNull(ProductIdGenerator.parse("missing"));
+        assertNull(ProductIdGenerator.parse("-1"));
+        assertNull(ProductIdGenerator.parse("99999999999999999999"));
+        assertNull(ProductIdGenerator.parse(""));
+    }
+}
@@ -0,0 +1,54 @@
+package com.compasso.projectms.index;
+
+import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.index.ProductPriceIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductPriceIndexTest {
+
+    private ProductPriceIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductPriceIndex(null);
+        index.put(new Product("1", "The Lord of the Rings", "Book", new BigDecimal("90.50")));
+        index.put(new Product("2", "Smart TV", "TV", new BigDecimal("2190.00")));
+        index.put(new Product("3", "Macbook Pro", "Notebook", new BigDecimal("1250.00")));
+        index.put(new Product("4", "PC Gamer", "Desktop", new BigDecimal("1250.00")));
+    }
+
+    @Test
+    @DisplayName("Must return ids within inclusive bounds ordered by price")
+    public void range() {
+        assertEquals(Arrays.asList("3", "4", "2"), index.range(new BigDecimal("1250"), null));
+        assertEquals(Arrays.asList("1", "3", "4"), index.range(null, new BigDecimal("1250.00")));
+        assertEquals(Arrays.asList("1", "3", "4", "2"), index.range(null, null));
+        assertTrue(index.range(new BigDecimal("2000"), new BigDecimal("100")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Must round bounds towards the inside of the range")
+    public void fractionalBounds() {
+        assertEquals(Arrays.asList("3", "4"), index.range(new BigDecimal("90.501"), new BigDecimal("2189.999")));
+        assertTrue(index.contains("1", new BigDecimal("90.495"), null));
+        assertFalse(index.contains("1", null, new BigDecimal("90.499")));
+    }
+
+    @Test
+    @DisplayName("Must move a product when its price changes and drop it when removed")
+    public void updateAndRemove() {
+        index.put(new Product("2", "Smart TV", "TV", new BigDecimal("10.00")));
+        assertEquals(Arrays.asList("2", "1"), index.range(null, new BigDecimal("100")));
+
+        index.remove("2");
+        assertEquals(Arrays.asList("1"), index.range(null, new BigDecimal("100")));
+        assertEquals(3, index.size());
+    }
+}
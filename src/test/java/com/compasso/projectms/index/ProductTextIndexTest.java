@@ -0,0 +1,60 @@
+package com.compasso.projectms.index;
+
+import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.index.ProductTextIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductTextIndexTest {
+
+    private ProductTextIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductTextIndex(null);
+        index.put(new Product("1", "Blue Shirt", "Cotton, slim fit", BigDecimal.TEN));
+        index.put(new Product("2", "Shirt", "Shirt for the summer", BigDecimal.TEN));
+        index.put(new Product("3", "Smart TV", "Big screen", BigDecimal.TEN));
+    }
+
+    @Test
+    @DisplayName("Must split text into lower-cased alphanumeric tokens")
+    public void tokenize() {
+        assertEquals(Arrays.asList("smart", "tv", "4k", "ação"), ProductTextIndex.tokenize("Smart-TV, 4K  Ação!"));
+        assertTrue(ProductTextIndex.tokenize("  ,; ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Must match query words as term prefixes and rank name hits first")
+    public void searchRanksByScore() {
+        List<String> ids = index.search("shi");
+
+        assertEquals(Arrays.asList("2", "1"), ids);
+    }
+
+    @Test
+    @DisplayName("Must require every query word to match")
+    public void searchRequiresAllWords() {
+        assertEquals(Arrays.asList("1"), index.search("shirt cotton"));
+        assertTrue(index.search("shirt screen").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Must drop stale terms when a product is re-indexed or removed")
+    public void updateAndRemove() {
+        index.put(new Product("3", "Monitor", "Big screen", BigDecimal.TEN));
+        assertTrue(index.search("smart").isEmpty());
+        assertEquals(Arrays.asList("3"), index.search("monitor"));
+
+        index.remove("3");
+        assertTrue(index.search("screen").isEmpty());
+        assertEquals(2, index.size());
+    }
+}
@@ -0,0 +1,73 @@
+package com.compasso.projectms.resource;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.repository.ProductRepository;
+import com.compasso.projectms.domain.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ProductConditionalRequestTest {
+
+    private static final String BODY = "{\"name\":\"OLED TV\",\"description\":\"4K\",\"price\":2190}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Must fail If-Match on a missing product with 412, and answer 404 without it")
+    public void missing() throws Exception {
+        String uri = "/products/" + Long.MAX_VALUE;
+
+        mockMvc.perform(put(uri).contentType(MediaType.APPLICATION_JSON).content(BODY)
+                .header(HttpHeaders.IF_MATCH, "*")).andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put(uri).contentType(MediaType.APPLICATION_JSON).content(BODY)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")).andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete(uri).header(HttpHeaders.IF_MATCH, "*")).andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put(uri).contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete(uri)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Must accept an If-Match list when any of its entity-tags is current")
+    public void matchList() throws Exception {
+        ProductDto product = productService.insert(new ProductDto(null, "Smart TV", "HD", BigDecimal.valueOf(2190)));
+        String uri = "/products/" + product.getId();
+
+        mockMvc.perform(put(uri).contentType(MediaType.APPLICATION_JSON).content(BODY)
+                .header(HttpHeaders.IF_MATCH, "\"3\", \"4\"")).andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put(uri).contentType(MediaType.APPLICATION_JSON).content(BODY)
+                .header(HttpHeaders.IF_MATCH, "W/\"abc\", \"3\", \"0\""))
+                .andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        mockMvc.perform(delete(uri).header(HttpHeaders.IF_MATCH, "\"0\"")).andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete(uri).header(HttpHeaders.IF_MATCH, "\"0\", \"1-gzip\"")).andExpect(status().isOk());
+        mockMvc.perform(delete(uri).header(HttpHeaders.IF_MATCH, "*")).andExpect(status().isPreconditionFailed());
+    }
+}
@@ -0,0 +1,86 @@
+package com.compasso.projectms.service;
+
+import com.compasso.projectms.api.dto.BatchItemResultDto;
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.repository.ProductRepository;
+import com.compasso.projectms.domain.service.ProductBatchService;
+import com.compasso.projectms.domain.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ProductBatchServiceTest {
+
+    @Autowired
+    private ProductBatchService productBatchService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @AfterEach
+    void SetUp() {
+        this.productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Must save every valid product of a batch across several chunks")
+    public void insertAll() {
+        List<ProductDto> dtos = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            dtos.add(new ProductDto("Shirt " + i, "Nice", BigDecimal.valueOf(10 + i)));
+        }
+
+        List<BatchItemResultDto> results = productBatchService.insertAll(dtos);
+
+        assertEquals(1200, results.size());
+        assertTrue(results.stream().allMatch(BatchItemResultDto::isSuccess));
+        assertEquals("Shirt 1199", productService.findById(results.get(1199).getId()).getName());
+    }
+
+    @Test
+    @DisplayName("Must report invalid items without failing the rest of the batch")
+    public void insertAllWithInvalidItems() {
+        List<ProductDto> dtos = Arrays.asList(
+                new ProductDto("Shirt", "Nice", BigDecimal.TEN),
+                new ProductDto("Shirt", "Nice", BigDecimal.ZERO),
+                new ProductDto("Shirt", "x".repeat(300), BigDecimal.TEN));
+
+        List<BatchItemResultDto> results = productBatchService.insertAll(dtos);
+
+        assertEquals(201, results.get(0).getStatusCode());
+        assertNotNull(results.get(0).getId());
+        assertEquals(400, results.get(1).getStatusCode());
+        assertEquals("The field price is invalid!", results.get(1).getMessage());
+        assertEquals(409, results.get(2).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Must update existing products and report missing ones")
+    public void updateAll() {
+        ProductDto saved = productService.insert(new ProductDto("Shirt", "Nice", BigDecimal.TEN));
+        saved.setName("Polo");
+        ProductDto missing = new ProductDto("Ghost", "Nice", BigDecimal.TEN);
+        missing.setId("100");
+        ProductDto withoutId = new ProductDto("Ghost", "Nice", BigDecimal.TEN);
+
+        List<BatchItemResultDto> results = productBatchService.updateAll(Arrays.asList(saved, missing, withoutId));
+
+        assertEquals(200, results.get(0).getStatusCode());
+        assertEquals(404, results.get(1).getStatusCode());
+        assertEquals(400, results.get(2).getStatusCode());
+        assertEquals("Polo", productService.findById(saved.getId()).getName());
+    }
+}
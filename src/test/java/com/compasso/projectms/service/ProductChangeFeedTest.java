@@ -0,0 +1,142 @@
+package com.compasso.projectms.service;
+
+import com.compasso.projectms.api.dto.ProductChangeDto;
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import com.compasso.projectms.domain.repository.ProductRepository;
+import com.compasso.projectms.domain.service.ProductChangeFeed;
+import com.compasso.projectms.domain.service.ProductService;
+import com.compasso.projectms.domain.service.exceptions.PreconditionFailedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ProductChangeFeedTest {
+
+    @Autowired
+    private ProductChangeFeed productChangeFeed;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void SetUp() {
+        this.productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Must record every committed write in order")
+    public void read() {
+        long head = productChangeFeed.head();
+        ProductDto saved = productService.insert(new ProductDto("Shirt", "Nice", BigDecimal.TEN));
+        saved.setName("Polo");
+        productService.update(saved.getId(), saved);
+        productService.delete(saved.getId());
+
+        List<ProductChangeDto> changes = productChangeFeed.read(head, 100);
+
+        assertEquals(3, changes.size());
+        assertEquals(ProductChangedEvent.Type.CREATED, changes.get(0).getType());
+        assertEquals("Polo", changes.get(1).getName());
+        assertEquals(1L, changes.get(1).getVersion());
+        assertEquals(ProductChangedEvent.Type.DELETED, changes.get(2).getType());
+        assertTrue(changes.stream().allMatch(change -> saved.getId().equals(change.getId())));
+        assertTrue(changes.get(0).getSequence() < changes.get(1).getSequence());
+        assertTrue(changes.get(1).getSequence() < changes.get(2).getSequence());
+        assertEquals(changes.get(2).getSequence(), productChangeFeed.head());
+    }
+
+    @Test
+    @DisplayName("Must remember the sequence the current thread's own write appended")
+    public void committedOnCurrentThread() throws InterruptedException {
+        productService.insert(new ProductDto("Shirt", "Nice", BigDecimal.TEN));
+        long own = productChangeFeed.committedOnCurrentThread();
+        assertEquals(productChangeFeed.read(own - 1, 1).get(0).getSequence(), own);
+
+        Thread other = new Thread(() -> productService.insert(new ProductDto("Polo", "Nice", BigDecimal.ONE)));
+        other.start();
+        other.join();
+        assertEquals(own, productChangeFeed.committedOnCurrentThread());
+        assertTrue(productChangeFeed.head() > own);
+    }
+
+    @Test
+    @DisplayName("Must not record a write that rolled back")
+    public void rollback() {
+        ProductDto saved = productService.insert(new ProductDto("Shirt", "Nice", BigDecimal.TEN));
+        long head = productChangeFeed.head();
+
+        assertThrows(PreconditionFailedException.class, () -> productService.update(saved.getId(), saved, List.of(7L)));
+        assertTrue(productChangeFeed.read(head, 100).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Must push changes committed after a subscription starts")
+    public void subscribe() throws InterruptedException {
+        long head = productChangeFeed.head();
+        List<ProductChangeDto> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(5);
+        ProductChangeFeed.Subscription subscription = productChangeFeed.subscribe(head, 2, changes -> {
+            received.addAll(changes);
+            changes.forEach(change -> latch.countDown());
+        });
+        try {
+            for (int i = 0; i < 5; i++) {
+                productService.insert(new ProductDto("Shirt " + i, "Nice", BigDecimal.TEN));
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            subscription.cancel();
+        }
+
+        List<String> names = received.stream().map(ProductChangeDto::getName).collect(Collectors.toList());
+        assertEquals(List.of("Shirt 0", "Shirt 1", "Shirt 2", "Shirt 3", "Shirt 4"), names);
+    }
+
+    @Test
+    @DisplayName("Must hold back changes behind a write still in flight, and skip one that rolled back")
+    public void gaps() {
+        long head = productChangeFeed.head();
+        long pending = nextSequence();
+        productChangeFeed.allocated(pending);
+        productService.insert(new ProductDto("Shirt", "Nice", BigDecimal.TEN));
+        assertTrue(productChangeFeed.read(head, 100).isEmpty(), "a change may still commit below the insert");
+
+        jdbcTemplate.update("INSERT INTO product_change (sequence, type, product_id, name, changed_at)"
+                + " VALUES (?, 'CREATED', 1, 'Pending', CURRENT_TIMESTAMP)", pending);
+        productChangeFeed.committed(pending);
+        assertEquals(List.of("Pending", "Shirt"), productChangeFeed.read(head, 100).stream()
+                .map(ProductChangeDto::getName).collect(Collectors.toList()));
+
+        head = productChangeFeed.head();
+        long rolledBack = nextSequence();
+        productChangeFeed.allocated(rolledBack);
+        productService.insert(new ProductDto("Polo", "Nice", BigDecimal.TEN));
+        productChangeFeed.abandoned(rolledBack);
+        assertEquals(List.of("Polo"), productChangeFeed.read(head, 100).stream()
+                .map(ProductChangeDto::getName).collect(Collectors.toList()));
+    }
+
+    private long nextSequence() {
+        return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR product_change_sequence", Long.class);
+    }
+}
@@ -0,0 +1,73 @@
+package com.compasso.projectms.service;
+
+import com.compasso.projectms.api.dto.ImportReportDto;
+import com.compasso.projectms.domain.repository.ProductRepository;
+import com.compasso.projectms.domain.service.ProductImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @AfterEach
+    void SetUp() {
+        this.productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Must import NDJSON lines and report the invalid ones by line")
+    public void importNdjson() {
+        String ndjson = "{\"name\":\"Shirt\",\"description\":\"Nice\",\"price\":10.5}\n"
+                + "\n"
+                + "{\"name\":\"Shirt\",\"description\":\"Nice\"\n"
+                + "{\"name\":\"\",\"description\":\"Nice\",\"price\":10.5}\n"
+                + "{\"name\":\"Polo\",\"description\":\"Nice\",\"price\":20}\n";
+
+        ImportReportDto report = productImportService.importStream(stream(ndjson),
+                ProductImportService.Format.NDJSON, "test");
+
+        assertEquals(ImportReportDto.Status.COMPLETED, report.getStatus());
+        assertEquals(4, report.getRowsRead());
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertEquals(4, report.getErrors().get(1).getLine());
+        assertEquals("The field name is invalid!", report.getErrors().get(1).getMessage());
+    }
+
+    @Test
+    @DisplayName("Must import CSV rows by header name")
+    public void importCsv() {
+        String csv = "price,name,description\n"
+                + "10.50,Shirt,\"Nice, and cheap\"\n"
+                + "abc,Polo,Nice\n";
+
+        ImportReportDto report = productImportService.importStream(stream(csv),
+                ProductImportService.Format.CSV, "test");
+
+        assertEquals(2, report.getRowsRead());
+        assertEquals(1, report.getImported());
+        assertEquals("The field price is invalid!", report.getErrors().get(0).getMessage());
+        assertTrue(productRepository.findAll().stream()
+                .anyMatch(product -> "Nice, and cheap".equals(product.getDescription())));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,19 +1,44 @@
 package com.compasso.projectms.service;
 
 import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.api.dto.ProductLookupDto;
+import com.compasso.projectms.api.dto.ProductLookupItemDto;
+import com.compasso.projectms.api.dto.ProductPageDto;
+import com.compasso.projectms.domain.cache.ProductCache;
 import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.entity.ProductChange;
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import com.compasso.projectms.domain.id.ProductIdGenerator;
+import com.compasso.projectms.domain.index.ProductIdFilter;
+import com.compasso.projectms.domain.index.ProductTextIndex;
+import com.compasso.projectms.domain.repository.ProductChangeRepository;
 import com.compasso.projectms.domain.repository.ProductRepository;
+import com.compasso.projectms.domain.repository.ProductSearchRepository;
+import com.compasso.projectms.domain.service.ProductChangeFeed;
 import com.compasso.projectms.domain.service.ProductService;
+import com.compasso.projectms.domain.service.exceptions.FormatErrorException;
+import com.compasso.projectms.domain.service.exceptions.PreconditionFailedException;
 import com.compasso.projectms.domain.service.exceptions.ProductNotFoundException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
 
+import static com.compasso.projectms.domain.repository.spec.ProductSpec.matchesNameOrDescription;
 import static com.compasso.projectms.domain.repository.spec.ProductSpec.productMinMax;
 import static com.compasso.projectms.domain.repository.spec.ProductSpec.productWithNameOrDescription;
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +53,27 @@ public class ProductServiceTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductSearchRepository productSearchRepository;
+
+    @Autowired
+    private ProductIdFilter productIdFilter;
+
+    @Autowired
+    private ProductChangeFeed productChangeFeed;
+
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductTextIndex productTextIndex;
+
     @AfterEach
     void SetUp() {
         this.productRepository.deleteAll();
@@ -74,6 +120,20 @@ public class ProductServiceTest {
                 productService.update("100", productDto), exceptionMessage);
     }
 
+    @Test
+    @DisplayName("Must bump the version on update and reject a stale one")
+    public void updateVersion() {
+        ProductDto saved = productService.insert(createValidProductDto());
+        assertEquals(0L, saved.getVersion());
+
+        saved.setName("Polo shirt");
+        ProductDto updated = productService.update(saved.getId(), saved, List.of(0L));
+        assertEquals(1L, updated.getVersion());
+        assertEquals(1L, productService.findById(saved.getId()).getVersion());
+
+        assertThrows(PreconditionFailedException.class, () -> productService.update(saved.getId(), saved, List.of(0L)));
+    }
+
     @Test
     @DisplayName("Must return a list of all products in the database")
     public void findAll() {
@@ -83,6 +143,39 @@ public class ProductServiceTest {
         assertEquals(expectedListSize, products.size());
     }
 
+    @Test
+    @DisplayName("Must walk every product exactly once through keyset pages")
+    public void findPage() {
+        Set<String> insertedIds = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            insertedIds.add(productService.insert(createValidProductDto()).getId());
+        }
+
+        List<String> visitedIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductPageDto page = productService.findPage(cursor, 2);
+            assertTrue(page.getItems().size() <= 2);
+            page.getItems().forEach(dto -> visitedIds.add(dto.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(visitedIds.size(), new HashSet<>(visitedIds).size());
+        assertTrue(visitedIds.containsAll(insertedIds));
+    }
+
+    @Test
+    @DisplayName("Must stream every product in the database")
+    public void streamAll() {
+        productService.insert(createValidProductDto());
+        productService.insert(createValidProductDto());
+
+        List<ProductDto> streamed = new ArrayList<>();
+        productService.streamAll(streamed::add);
+
+        assertEquals(productService.findAll().size(), streamed.size());
+    }
+
     @Test
     @DisplayName("It should only return a product searched for by id")
     public void findById() {
@@ -100,6 +193,80 @@ public class ProductServiceTest {
         assertEquals(savedProductDtoPrice, foundedProduct.getPrice());
     }
 
+    @Test
+    @DisplayName("Must serve repeated reads by id from the cache and see committed updates")
+    public void findByIdCached() {
+        ProductDto saved = productService.insert(createValidProductDto());
+        productService.findById(saved.getId());
+        long hits = productCache.stats().hitCount();
+
+        ProductDto cached = productService.findById(saved.getId());
+        cached.setName("Changed by the caller");
+        assertEquals(hits + 1, productCache.stats().hitCount());
+        assertEquals("Shirt", productService.findById(saved.getId()).getName());
+
+        saved.setName("Polo");
+        productService.update(saved.getId(), saved);
+        assertEquals("Polo", productService.findById(saved.getId()).getName());
+
+        productService.delete(saved.getId());
+        assertThrows(ProductNotFoundException.class, () -> productService.findById(saved.getId()));
+    }
+
+    @Test
+    @DisplayName("Must answer ids that were never created, or deleted before a rebuild, from the id filter")
+    public void findByIdFiltered() throws InterruptedException {
+        ProductDto saved = productService.insert(createValidProductDto());
+        assertTrue(productIdFilter.isReady());
+        assertTrue(productIdFilter.mightContain(ProductIdGenerator.parse(saved.getId())));
+        assertEquals(saved.getName(), productService.findById(saved.getId()).getName());
+
+        productService.delete(saved.getId());
+        awaitFilterCaughtUp();
+        assertTrue(productIdFilter.mightContain(ProductIdGenerator.parse(saved.getId())),
+                "deletes are only dropped by the next scan");
+        productIdFilter.rebuild();
+        long absent = productIdFilter.absentCount();
+        ProductNotFoundException e = assertThrows(ProductNotFoundException.class,
+                () -> productService.findById(saved.getId()));
+        assertThrows(ProductNotFoundException.class, () -> productService.delete(saved.getId()));
+        assertEquals(absent + 1, productIdFilter.absentCount(), "writes do not rely on the filter");
+        assertEquals(0, e.getStackTrace().length);
+    }
+
+    @Test
+    @DisplayName("Must pick up products created around this instance from the change feed and the rebuild")
+    public void findByIdFilterCatchesUp() throws InterruptedException {
+        Product remote = new Product("8000000000000000001", "Smart TV", "Created by another instance",
+                BigDecimal.valueOf(2190));
+        Product direct = new Product("8000000000000000002", "Macbook", "Inserted with SQL", BigDecimal.valueOf(1250));
+        for (Product product : Arrays.asList(remote, direct)) {
+            jdbcTemplate.update("INSERT INTO product (id, name, description, price, version) VALUES (?, ?, ?, ?, 0)",
+                    product.getId(), product.getName(), product.getDescription(), product.getPrice());
+        }
+        awaitFilterCaughtUp();
+        productChangeRepository.save(new ProductChange(ProductChangedEvent.created(remote)));
+        productChangeFeed.committed(productChangeRepository.findMaxSequence());
+        assertFalse(productIdFilter.isCaughtUp() && !productIdFilter.mightContain(remote.getId()),
+                "a create the filter has not applied yet is never reported absent");
+
+        awaitFilterCaughtUp();
+        assertEquals(remote.getName(), productService.findById(remote.getId().toString()).getName());
+        assertThrows(ProductNotFoundException.class, () -> productService.findById(direct.getId().toString()));
+        assertEquals(direct.getName(), productService.update(direct.getId().toString(),
+                new ProductDto(direct.getName(), "Updated", direct.getPrice())).getName());
+
+        productIdFilter.rebuild();
+        assertEquals("Updated", productService.findById(direct.getId().toString()).getDescription());
+    }
+
+    private void awaitFilterCaughtUp() throws InterruptedException {
+        for (int i = 0; i < 1000 && !productIdFilter.isCaughtUp(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(productIdFilter.isCaughtUp());
+    }
+
     @Test
     @DisplayName("Must fail to find a product by id")
     public void findByIdFail() {
@@ -196,6 +363,146 @@ public class ProductServiceTest {
         assertEquals(2, products.size());
     }
 
+    @Test
+    @DisplayName("Must answer every search query shape like the Specification")
+    public void searchShapes() {
+        productService.insert(createValidProductDto());
+        productService.insert(new ProductDto("Smart TV", "Big screen", BigDecimal.valueOf(2190.0)));
+        productService.insert(new ProductDto("Smart watch", "Nice strap", BigDecimal.valueOf(990.0)));
+
+        for (String text : new String[]{null, "smart", "nice"}) {
+            for (BigDecimal min : new BigDecimal[]{null, BigDecimal.valueOf(1000)}) {
+                for (BigDecimal max : new BigDecimal[]{null, BigDecimal.valueOf(2500)}) {
+                    Set<String> expected = new HashSet<>();
+                    productService.findAllSpec(where(productWithNameOrDescription(text)).and(productMinMax(min, max)))
+                            .forEach(product -> expected.add(product.getId().toString()));
+                    Set<String> found = new HashSet<>();
+                    productSearchRepository.search(text, min, max).forEach(dto -> found.add(dto.getId()));
+                    assertEquals(expected, found, text + " " + min + " " + max);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Must search products through the text index")
+    public void search() {
+        ProductDto saved = productService.insert(createValidProductDto());
+        productService.insert(new ProductDto("Smart TV", "Big screen", BigDecimal.valueOf(2190.0)));
+
+        List<ProductDto> products = productService.search("shi nice", null, null);
+
+        assertEquals(1, products.size());
+        assertEquals(saved.getId(), products.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Must not find a product through the text index after it is deleted")
+    public void searchAfterDelete() {
+        ProductDto saved = productService.insert(createValidProductDto());
+        productService.delete(saved.getId());
+
+        assertTrue(productService.search("shirt", null, null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Must combine the text index with the price filter")
+    public void searchWithPrice() {
+        productService.insert(createValidProductDto());
+
+        assertEquals(1, productService.search("shirt", BigDecimal.valueOf(8000), null).size());
+        assertTrue(productService.search("shirt", null, BigDecimal.valueOf(8000)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Must return price range searches ordered by price")
+    public void searchByPriceOrdered() {
+        productService.insert(new ProductDto("PC Gamer", "Desktop", BigDecimal.valueOf(11200.0)));
+        productService.insert(new ProductDto("Smart TV", "Big screen", BigDecimal.valueOf(12190.0)));
+        productService.insert(new ProductDto("Macbook Pro", "Notebook", BigDecimal.valueOf(11250.0)));
+
+        List<ProductDto> products = productService.search(null, BigDecimal.valueOf(11000), BigDecimal.valueOf(13000));
+
+        assertEquals(3, products.size());
+        assertEquals("PC Gamer", products.get(0).getName());
+        assertEquals("Macbook Pro", products.get(1).getName());
+        assertEquals("Smart TV", products.get(2).getName());
+    }
+
+    @Test
+    @DisplayName("Must find the same products whether the text index is ready or not")
+    public void searchBeforeIndexReady() throws InterruptedException {
+        productService.insert(new ProductDto("Macbook Pro", "Notebook", BigDecimal.valueOf(11250.0)));
+        productService.insert(new ProductDto("Smart TV", "Big screen", BigDecimal.valueOf(12190.0)));
+        productService.insert(new ProductDto("Smart watch", "Nice strap", BigDecimal.valueOf(990.0)));
+        List<String> queries = Arrays.asList("ook", "mac", "book", "tv smart", "smart nice", "screen-big", "art");
+        Map<String, Set<String>> indexed = new HashMap<>();
+        for (String query : queries) {
+            indexed.put(query, names(productService.search(query, null, null)));
+        }
+        assertEquals(Collections.emptySet(), indexed.get("ook"));
+        assertEquals(Collections.singleton("Smart watch"), indexed.get("smart nice"));
+
+        List<Product> products = productRepository.findAll();
+        CountDownLatch scanning = new CountDownLatch(1);
+        productTextIndex.useSource(consumer -> {
+            try {
+                scanning.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            products.forEach(consumer);
+        });
+        Thread rebuild = new Thread(productTextIndex::rebuild);
+        rebuild.start();
+        try {
+            while (productTextIndex.isReady()) {
+                Thread.sleep(1);
+            }
+            for (String query : queries) {
+                assertEquals(indexed.get(query), names(productService.search(query, null, null)), query);
+                assertEquals(indexed.get(query), names(products.stream().map(ProductDto::new)
+                        .filter(dto -> matchesNameOrDescription(dto, query))
+                        .collect(Collectors.toList())), "snapshot scan " + query);
+            }
+        } finally {
+            scanning.countDown();
+            rebuild.join();
+            productTextIndex.useSource(null);
+        }
+    }
+
+    private static Set<String> names(List<ProductDto> products) {
+        return products.stream().map(ProductDto::getName).collect(Collectors.toSet());
+    }
+
+    @Test
+    @DisplayName("Must look up many ids in the order given, reporting the missing ones in place")
+    public void findAllById() {
+        ProductDto tv = productService.insert(new ProductDto("Smart TV", "Big screen", BigDecimal.valueOf(12190.0)));
+        ProductDto pc = productService.insert(new ProductDto("PC Gamer", "Desktop", BigDecimal.valueOf(11200.0)));
+        productService.findById(tv.getId());
+        ProductDto deleted = productService.insert(createValidProductDto());
+        productService.delete(deleted.getId());
+
+        ProductLookupDto lookup = productService.findAllById(
+                Arrays.asList(pc.getId(), deleted.getId(), "not-an-id", tv.getId(), pc.getId()));
+
+        assertEquals(3, lookup.getFound());
+        assertEquals(2, lookup.getMissing());
+        List<ProductLookupItemDto> items = lookup.getItems();
+        assertEquals("PC Gamer", items.get(0).getProduct().getName());
+        assertEquals(404, items.get(1).getStatusCode());
+        assertEquals(deleted.getId(), items.get(1).getId());
+        assertEquals(404, items.get(2).getStatusCode());
+        assertEquals("Smart TV", items.get(3).getProduct().getName());
+        assertEquals(200, items.get(4).getStatusCode());
+        assertEquals(4, items.get(4).getIndex());
+
+        List<String> tooMany = Collections.nCopies(ProductService.MAX_LOOKUP_SIZE + 1, pc.getId());
+        assertThrows(FormatErrorException.class, () -> productService.findAllById(tooMany));
+    }
+
     private ProductDto createValidProductDto() {
         return new ProductDto("Shirt", "Nice", BigDecimal.valueOf(8596.78));       
     }
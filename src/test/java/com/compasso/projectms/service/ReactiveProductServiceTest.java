@@ -0,0 +1,134 @@
+package com.compasso.projectms.service;
+
+import com.compasso.projectms.api.dto.ProductChangeDto;
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.api.dto.ProductPageDto;
+import com.compasso.projectms.domain.event.ProductChangedEvent;
+import com.compasso.projectms.domain.repository.ProductRepository;
+import com.compasso.projectms.domain.service.ProductChangeFeed;
+import com.compasso.projectms.domain.service.ProductService;
+import com.compasso.projectms.domain.service.ReactiveProductService;
+import com.compasso.projectms.domain.service.exceptions.PreconditionFailedException;
+import com.compasso.projectms.domain.service.exceptions.ProductNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+public class ReactiveProductServiceTest {
+
+    @Autowired
+    private ReactiveProductService reactiveProductService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductChangeFeed productChangeFeed;
+
+    @AfterEach
+    void SetUp() {
+        this.productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Must save through R2DBC and read the product back through JPA")
+    public void insert() {
+        ProductDto saved = reactiveProductService.insert(new ProductDto("Shirt", "Nice", BigDecimal.valueOf(19.9))).block();
+
+        assertNotNull(saved.getId());
+        assertEquals("Shirt", productService.findById(saved.getId()).getName());
+        assertEquals("Shirt", reactiveProductService.findById(saved.getId()).block().getName());
+    }
+
+    @Test
+    @DisplayName("Must fail to update, delete or find a missing product")
+    public void notFound() {
+        ProductDto dto = new ProductDto("Shirt", "Nice", BigDecimal.ONE);
+
+        assertThrows(ProductNotFoundException.class, () -> reactiveProductService.update("missing", dto, null).block());
+        assertThrows(ProductNotFoundException.class, () -> reactiveProductService.delete("missing").block());
+        assertThrows(ProductNotFoundException.class, () -> reactiveProductService.findById("missing").block());
+    }
+
+    @Test
+    @DisplayName("Must only update a product still at the expected version")
+    public void updateVersion() {
+        ProductDto saved = reactiveProductService.insert(new ProductDto("Shirt", "Nice", BigDecimal.ONE)).block();
+
+        ProductDto updated = reactiveProductService.update(saved.getId(), saved, List.of(0L)).block();
+        assertEquals(1L, updated.getVersion());
+        assertThrows(PreconditionFailedException.class,
+                () -> reactiveProductService.update(saved.getId(), saved, List.of(0L)).block());
+        assertEquals(2L, reactiveProductService.update(saved.getId(), saved, List.of(0L, 1L)).block().getVersion());
+
+        assertThrows(PreconditionFailedException.class,
+                () -> reactiveProductService.delete(saved.getId(), List.of(0L, 1L)).block());
+        reactiveProductService.delete(saved.getId(), List.of(2L)).block();
+        assertThrows(ProductNotFoundException.class, () -> reactiveProductService.findById(saved.getId()).block());
+    }
+
+    @Test
+    @DisplayName("Must page through every product with the cursor")
+    public void findPage() {
+        for (int i = 0; i < 5; i++) {
+            productService.insert(new ProductDto("Shirt " + i, "Nice", BigDecimal.TEN));
+        }
+
+        ProductPageDto first = reactiveProductService.findPage(null, 3).block();
+        ProductPageDto second = reactiveProductService.findPage(first.getNextCursor(), 3).block();
+
+        assertEquals(3, first.getItems().size());
+        assertEquals(2, second.getItems().size());
+        assertNull(second.getNextCursor());
+        assertEquals(5, reactiveProductService.streamAll().count().block());
+    }
+
+    @Test
+    @DisplayName("Must keep the search indexes in step with reactive writes")
+    public void search() {
+        ProductDto saved = reactiveProductService.insert(new ProductDto("Trekking boot", "Waterproof",
+                BigDecimal.valueOf(320))).block();
+
+        List<ProductDto> found = reactiveProductService.search("trek", null, BigDecimal.valueOf(400)).block();
+        assertEquals(1, found.size());
+        assertEquals(saved.getId(), found.get(0).getId());
+
+        reactiveProductService.delete(saved.getId()).block();
+        assertTrue(reactiveProductService.search("trek", null, null).block().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Must append reactive writes to the change feed with the write, and nothing for a failed one")
+    public void changes() {
+        long head = productChangeFeed.head();
+        ProductDto saved = reactiveProductService.insert(new ProductDto("Shirt", "Nice", BigDecimal.ONE)).block();
+        reactiveProductService.update(saved.getId(), new ProductDto("Polo", "Nice", BigDecimal.ONE), List.of(0L)).block();
+        assertThrows(PreconditionFailedException.class,
+                () -> reactiveProductService.update(saved.getId(), saved, List.of(0L)).block());
+        reactiveProductService.delete(saved.getId()).block();
+
+        List<ProductChangeDto> changes = productChangeFeed.read(head, 100);
+        assertEquals(List.of(ProductChangedEvent.Type.CREATED, ProductChangedEvent.Type.UPDATED,
+                        ProductChangedEvent.Type.DELETED),
+                changes.stream().map(ProductChangeDto::getType).collect(Collectors.toList()));
+        assertEquals("Polo", changes.get(1).getName());
+        assertEquals(1L, changes.get(1).getVersion());
+        assertTrue(changes.stream().allMatch(change -> saved.getId().equals(change.getId())));
+        assertTrue(Duration.between(changes.get(0).getChangedAt(), Instant.now()).abs().getSeconds() < 60);
+        assertEquals(changes.get(2).getSequence(), productChangeFeed.head());
+    }
+}
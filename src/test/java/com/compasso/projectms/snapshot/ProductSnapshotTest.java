@@ -0,0 +1,93 @@
+package com.compasso.projectms.snapshot;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.domain.entity.Product;
+import com.compasso.projectms.domain.snapshot.ProductSnapshot;
+import com.compasso.projectms.domain.snapshot.ProductSnapshotWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Must read back every product written to a snapshot")
+    public void writeAndRead() throws IOException {
+        ProductSnapshot snapshot = write(
+                product("1", "Ação", "Lorem ipsum", new BigDecimal("2190.50"), 3L),
+                product("7", "Shirt", null, new BigDecimal("-3"), 0L),
+                product("766985590464839680", "Shirt", "Lorem ipsum", null, 1L));
+
+        assertEquals(3, snapshot.size());
+        assertEquals(42L, snapshot.getSequence());
+
+        ProductDto first = snapshot.find(1);
+        assertEquals("1", first.getId());
+        assertEquals("Ação", first.getName());
+        assertEquals(new BigDecimal("2190.50"), first.getPrice());
+        assertEquals(3L, first.getVersion());
+
+        ProductDto second = snapshot.find(7);
+        assertNull(second.getDescription());
+        assertEquals(new BigDecimal("-3"), second.getPrice());
+
+        assertNull(snapshot.find(766985590464839680L).getPrice());
+        assertNull(snapshot.find(2));
+        assertNull(snapshot.find(Long.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Must page through the snapshot in id order")
+    public void page() throws IOException {
+        ProductSnapshot snapshot = write(
+                product("2", "A", "a", BigDecimal.ONE, 0L),
+                product("4", "B", "b", BigDecimal.ONE, 0L),
+                product("9", "C", "c", BigDecimal.ONE, 0L));
+
+        assertEquals(List.of("2", "4"), ids(snapshot.page(null, 2)));
+        assertEquals(List.of("9"), ids(snapshot.page(4L, 2)));
+        assertEquals(List.of("4", "9"), ids(snapshot.page(3L, 5)));
+        assertTrue(snapshot.page(9L, 2).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Must reject products out of id order")
+    public void order() throws IOException {
+        try (ProductSnapshotWriter writer = new ProductSnapshotWriter(directory.resolve("products.snap"))) {
+            writer.add(product("2", "A", "a", BigDecimal.ONE, 0L));
+            assertThrows(IllegalArgumentException.class, () -> writer.add(product("1", "B", "b", BigDecimal.ONE, 0L)));
+        }
+    }
+
+    private ProductSnapshot write(Product... products) throws IOException {
+        Path file = directory.resolve("products.snap");
+        try (ProductSnapshotWriter writer = new ProductSnapshotWriter(file)) {
+            for (Product product : products) {
+                writer.add(product);
+            }
+            writer.finish(42);
+        }
+        return ProductSnapshot.open(file);
+    }
+
+    private static Product product(String id, String name, String description, BigDecimal price, Long version) {
+        Product product = new Product(id, name, description, price);
+        product.setVersion(version);
+        return product;
+    }
+
+    private static List<String> ids(List<ProductDto> products) {
+        return products.stream().map(ProductDto::getId).collect(Collectors.toList());
+    }
+}
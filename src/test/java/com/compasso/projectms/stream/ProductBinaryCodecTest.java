@@ -0,0 +1,77 @@
+package com.compasso.projectms.stream;
+
+import com.compasso.projectms.api.dto.ProductDto;
+import com.compasso.projectms.api.stream.ProductBinaryReader;
+import com.compasso.projectms.api.stream.ProductBinaryWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductBinaryCodecTest {
+
+    @Test
+    @DisplayName("Must read back what the binary writer wrote")
+    public void roundTrip() throws IOException {
+        ProductDto first = new ProductDto("Ação", "x".repeat(300), new BigDecimal("2190.50"));
+        first.setId("1");
+        ProductDto second = new ProductDto("Shirt", null, new BigDecimal("-3"));
+        second.setId("23456789012345");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ProductBinaryWriter writer = new ProductBinaryWriter(out)) {
+            writer.write(first);
+            writer.write(second);
+        }
+
+        ProductBinaryReader reader = new ProductBinaryReader(new ByteArrayInputStream(out.toByteArray()));
+        ProductDto firstRead = reader.read();
+        ProductDto secondRead = reader.read();
+
+        assertEquals("1", firstRead.getId());
+        assertEquals("Ação", firstRead.getName());
+        assertEquals(300, firstRead.getDescription().length());
+        assertEquals(new BigDecimal("2190.50"), firstRead.getPrice());
+        assertEquals("23456789012345", secondRead.getId());
+        assertNull(secondRead.getDescription());
+        assertEquals(new BigDecimal("-3"), secondRead.getPrice());
+        assertNull(reader.read());
+    }
+
+    @Test
+    @DisplayName("Must round-trip prices beyond a long and with a negative scale")
+    public void roundTripWidePrices() throws IOException {
+        ProductDto wide = new ProductDto("Wide", null, new BigDecimal("-99999999999999999999999.99"));
+        wide.setId("1");
+        ProductDto exponent = new ProductDto("Exponent", null, new BigDecimal("1E+3"));
+        exponent.setId("2");
+        ProductDto free = new ProductDto("Free", null, null);
+        free.setId("3");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ProductBinaryWriter writer = new ProductBinaryWriter(out)) {
+            writer.write(wide);
+            writer.write(exponent);
+            writer.write(free);
+        }
+
+        ProductBinaryReader reader = new ProductBinaryReader(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(new BigDecimal("-99999999999999999999999.99"), reader.read().getPrice());
+        BigDecimal thousand = reader.read().getPrice();
+        assertEquals(-3, thousand.scale());
+        assertEquals(new BigDecimal("1E+3"), thousand);
+        assertNull(reader.read().getPrice());
+        assertNull(reader.read());
+    }
+
+    @Test
+    @DisplayName("Must reject a stream without the product header")
+    public void rejectsUnknownStream() {
+        assertThrows(IOException.class, () -> new ProductBinaryReader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4})));
+    }
+}